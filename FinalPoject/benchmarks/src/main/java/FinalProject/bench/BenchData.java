@@ -0,0 +1,112 @@
+package FinalProject.bench;
+
+import FinalProject.dao.DiaryStore;
+import FinalProject.dao.JdbcDiaryStore;
+import FinalProject.model.Diary;
+import FinalProject.model.DiarySummary;
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+import FinalProject.store.DiaryJournal;
+import FinalProject.store.MappedDiaryStore;
+import FinalProject.util.DBUtil;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/**
+ * 效能測試用的資料集：每天一篇、從 {@link #FIRST_DAY} 開始連續 n 天。
+ * <p>
+ * 資料放在 target/bench-data，同樣大小的資料集建立一次後重複使用（1M 篇需要幾分鐘）。
+ * 內容由日期決定，每次產生的都一樣，不同次的測試結果可以互相比較。
+ */
+final class BenchData {
+    static final LocalDate FIRST_DAY = LocalDate.of(1000, 1, 1);
+    private static final Path DIR = Path.of("target", "bench-data");
+    private static final int BATCH = 1000;
+
+    private static final String TEXT = "今天早上去公園散步天氣很好心情也不錯中午和朋友一起吃飯聊了很多以前的事"
+        + "下午在家看書寫作業晚上煮了咖哩飯明天還要早起上課希望一切順利";
+
+    private BenchData() {
+    }
+
+    static String date(int i) {
+        return FIRST_DAY.plusDays(i).toString();
+    }
+
+    static Diary diary(int i) {
+        SplittableRandom r = new SplittableRandom(i);
+        int from = r.nextInt(TEXT.length() / 2);
+        String content = TEXT.substring(from) + TEXT.substring(0, from) + " #" + i;
+        return new Diary(date(i), Mood.CHOICES.get(r.nextInt(Mood.CHOICES.size())),
+            Weather.CHOICES.get(r.nextInt(Weather.CHOICES.size())),
+            content, r.nextInt(4) == 0 ? "/photos/" + i + ".jpg" : null);
+    }
+
+    /** 以 MySQL 相容模式的 H2 檔案資料庫代替遠端 MySQL，經過 DBUtil 的連線池存取。 */
+    static DiaryStore jdbc(int entries) throws IOException, SQLException {
+        Files.createDirectories(DIR);
+        Path config = DIR.resolve("db-" + entries + ".properties");
+        Properties p = new Properties();
+        p.setProperty("db.url", "jdbc:h2:file:" + DIR.toAbsolutePath().resolve("h2-" + entries)
+            + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+        p.setProperty("db.user", "sa");
+        p.setProperty("db.password", "");
+        p.setProperty("pool.maxSize", "8");
+        try (Writer w = Files.newBufferedWriter(config, StandardCharsets.UTF_8)) {
+            p.store(w, "diary benchmarks");
+        }
+        // DBUtil 第一次使用時才讀設定檔
+        System.setProperty("diary.config", config.toString());
+
+        try (Connection c = DBUtil.getConnection(); Statement s = c.createStatement()) {
+            s.execute("CREATE TABLE IF NOT EXISTS diary ("
+                + "diary_date DATE PRIMARY KEY, mood_code TINYINT NOT NULL DEFAULT 0, weather_code TINYINT NOT NULL DEFAULT 0,"
+                + " content TEXT, image_path VARCHAR(500))");
+            s.execute("CREATE INDEX IF NOT EXISTS idx_diary_mood_weather_date ON diary (mood_code, weather_code, diary_date)");
+        }
+        DiaryStore store = new JdbcDiaryStore();
+        fill(store, entries);
+        return store;
+    }
+
+    static MappedDiaryStore mapped(int entries) throws IOException {
+        MappedDiaryStore store = MappedDiaryStore.open(DIR.resolve("mapped-" + entries + ".dat"));
+        fill(store, entries);
+        return store;
+    }
+
+    static DiaryJournal journal(int entries) throws IOException {
+        DiaryJournal j = DiaryJournal.open(DIR.resolve("journal-" + entries));
+        for (int i = j.size(); i < entries; i++) j.append(diary(i));
+        return j;
+    }
+
+    // 資料依日期順序寫入，最新一篇的日期就代表已經寫到第幾篇
+    private static void fill(DiaryStore store, int entries) {
+        List<DiarySummary> newest = store.getDiariesBefore(null, 1);
+        int from = newest.isEmpty() ? 0
+            : (int) (LocalDate.parse(newest.get(0).getDate()).toEpochDay() - FIRST_DAY.toEpochDay()) + 1;
+        if (from >= entries) return;
+        System.out.println("建立 " + entries + " 篇的測試資料（已有 " + from + " 篇）...");
+        List<Diary> batch = new ArrayList<>(BATCH);
+        for (int i = from; i < entries; i++) {
+            batch.add(diary(i));
+            if (batch.size() == BATCH || i == entries - 1) {
+                if (!store.saveBatch(batch)) throw new IllegalStateException("無法寫入測試資料");
+                batch.clear();
+            }
+        }
+    }
+}
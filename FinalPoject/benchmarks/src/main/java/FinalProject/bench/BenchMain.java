@@ -0,0 +1,28 @@
+package FinalProject.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 執行效能測試，參數與 JMH 原本的命令列相同（例如 -p entries=1000 DiaryStore）。
+ * 預設加上 GC profiler（每次操作配置多少記憶體），結果寫到 target/jmh-result.json，
+ * 可以交給 {@link RegressionCheck} 和基準結果比較。
+ */
+public class BenchMain {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cli);
+        if (cli.getProfilers().isEmpty()) builder.addProfiler(GCProfiler.class);
+        if (!cli.getResultFormat().hasValue()) builder.resultFormat(ResultFormatType.JSON);
+        if (!cli.getResult().hasValue()) builder.result("target/jmh-result.json");
+        Options opts = builder.build();
+        new Runner(opts).run();
+    }
+}
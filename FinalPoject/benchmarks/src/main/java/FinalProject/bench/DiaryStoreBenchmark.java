@@ -0,0 +1,96 @@
+package FinalProject.bench;
+
+import FinalProject.dao.DiaryStore;
+import FinalProject.model.Diary;
+import FinalProject.model.DiarySummary;
+import FinalProject.model.Mood;
+import FinalProject.util.DBUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * DiaryStore 各種讀寫的吞吐量與延遲。
+ * store=jdbc 是經過連線池的 JdbcDiaryStore（H2 代替 MySQL），store=mapped 是本機離線資料檔。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiaryStoreBenchmark {
+    private static final int PAGE = 50;
+
+    @Param({"1000", "100000", "1000000"})
+    public int entries;
+
+    @Param({"jdbc", "mapped"})
+    public String store;
+
+    private DiaryStore diaries;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException, SQLException {
+        diaries = "jdbc".equals(store) ? BenchData.jdbc(entries) : BenchData.mapped(entries);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        if (diaries instanceof Closeable c) c.close();
+        DBUtil.shutdown();
+    }
+
+    /** 更新既有的一天（UPSERT）。 */
+    @Benchmark
+    public boolean save() {
+        int i = ThreadLocalRandom.current().nextInt(entries);
+        Diary d = BenchData.diary(i);
+        d.setContent(d.getContent() + " (edited)");
+        return diaries.saveDiary(d);
+    }
+
+    @Benchmark
+    public Diary loadDay() {
+        return diaries.loadDiary(BenchData.date(ThreadLocalRandom.current().nextInt(entries)));
+    }
+
+    /** 首頁第一頁列表。 */
+    @Benchmark
+    public List<DiarySummary> listFirstPage() {
+        return diaries.getDiariesBefore(null, PAGE);
+    }
+
+    /** 捲到任意位置的下一頁（keyset 分頁）。 */
+    @Benchmark
+    public List<DiarySummary> listPageAt() {
+        return diaries.getDiariesBefore(BenchData.date(ThreadLocalRandom.current().nextInt(entries)), PAGE);
+    }
+
+    /** 首頁依心情篩選（兩種心情，約四成的日記符合）。 */
+    @Benchmark
+    public List<DiarySummary> filterFirstPage() {
+        return diaries.getDiariesMatching(Mood.SAD.bit() | Mood.EXPLODED.bit(), 0, null, PAGE);
+    }
+
+    /** 逐篇讀過全部日記（建立搜尋索引、匯出時的路徑）。 */
+    @Benchmark
+    public void listAll(Blackhole bh) {
+        diaries.forEachDiary(bh::consume);
+    }
+
+    /** 日曆模式的單月查詢。 */
+    @Benchmark
+    public List<DiarySummary> monthRange() {
+        int i = ThreadLocalRandom.current().nextInt(entries);
+        return diaries.getDiariesInMonth(YearMonth.from(BenchData.FIRST_DAY.plusDays(i)));
+    }
+}
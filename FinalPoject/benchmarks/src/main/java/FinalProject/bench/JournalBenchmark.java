@@ -0,0 +1,49 @@
+package FinalProject.bench;
+
+import FinalProject.model.Diary;
+import FinalProject.store.DiaryJournal;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * 本機日記檔 diary/journal（取代原本每天一個 txt 的備份）的附加寫入與讀取。
+ * 每次 append 都會 force 到磁碟，結果很受檔案系統影響，請在同一台機器上比較。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int entries;
+
+    private DiaryJournal journal;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        journal = BenchData.journal(entries);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    @Benchmark
+    public void append() throws IOException {
+        Diary d = BenchData.diary(ThreadLocalRandom.current().nextInt(entries));
+        d.setContent(d.getContent() + " (edited)");
+        journal.append(d);
+    }
+
+    @Benchmark
+    public Diary read() throws IOException {
+        return journal.read(BenchData.date(ThreadLocalRandom.current().nextInt(entries)));
+    }
+}
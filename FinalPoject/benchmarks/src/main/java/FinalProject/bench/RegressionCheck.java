@@ -0,0 +1,96 @@
+package FinalProject.bench;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 比較兩次 JMH 的 JSON 結果，有任何一項變差超過門檻時以 exit code 1 結束，可以放在 CI 擋回歸。
+ * <p>
+ * 用法：RegressionCheck &lt;baseline.json&gt; &lt;current.json&gt; [門檻百分比，預設 10]
+ * <ul>
+ *   <li>thrpt：分數下降超過門檻</li>
+ *   <li>sample / avgt：平均或 p99 延遲上升超過門檻</li>
+ *   <li>gc.alloc.rate.norm：每次操作配置的記憶體增加超過門檻</li>
+ * </ul>
+ */
+public class RegressionCheck {
+    private static final String ALLOC = "gc.alloc.rate.norm";
+
+    private record Metric(String name, double score, boolean higherIsBetter) {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法：RegressionCheck <baseline.json> <current.json> [門檻百分比]");
+            System.exit(2);
+        }
+        double threshold = (args.length > 2 ? Double.parseDouble(args[2]) : 10) / 100;
+        Map<String, Metric> baseline = load(Path.of(args[0]));
+        Map<String, Metric> current = load(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Metric> e : current.entrySet()) {
+            Metric before = baseline.get(e.getKey());
+            if (before == null || before.score() == 0) continue;
+            Metric now = e.getValue();
+            double change = (now.score() - before.score()) / before.score();
+            boolean worse = now.higherIsBetter() ? change < -threshold : change > threshold;
+            if (worse) regressions++;
+            System.out.printf("%s %-90s %12.3f -> %12.3f (%+.1f%%)%n",
+                worse ? "❌" : "  ", e.getKey(), before.score(), now.score(), change * 100);
+        }
+        if (regressions > 0) {
+            System.err.println("❌ 有 " + regressions + " 項效能變差超過 " + Math.round(threshold * 100) + "%");
+            System.exit(1);
+        }
+        System.out.println("✅ 沒有效能回歸");
+    }
+
+    // key：benchmark 名稱 + 參數 + 模式 + 指標
+    private static Map<String, Metric> load(Path file) throws IOException {
+        Map<String, Metric> metrics = new TreeMap<>();
+        JsonArray runs;
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            runs = JsonParser.parseReader(r).getAsJsonArray();
+        }
+        for (JsonElement el : runs) {
+            JsonObject run = el.getAsJsonObject();
+            String mode = run.get("mode").getAsString();
+            StringBuilder key = new StringBuilder(run.get("benchmark").getAsString());
+            if (run.has("params")) {
+                Map<String, String> params = new LinkedHashMap<>();
+                run.getAsJsonObject("params").entrySet()
+                    .forEach(p -> params.put(p.getKey(), p.getValue().getAsString()));
+                key.append(params);
+            }
+            key.append(" ").append(mode);
+
+            JsonObject primary = run.getAsJsonObject("primaryMetric");
+            boolean throughput = "thrpt".equals(mode);
+            metrics.put(key + " score", new Metric("score", primary.get("score").getAsDouble(), throughput));
+            if ("sample".equals(mode) && primary.has("scorePercentiles")) {
+                JsonElement p99 = primary.getAsJsonObject("scorePercentiles").get("99.0");
+                if (p99 != null) metrics.put(key + " p99", new Metric("p99", p99.getAsDouble(), false));
+            }
+            if (run.has("secondaryMetrics")) {
+                for (Map.Entry<String, JsonElement> m : run.getAsJsonObject("secondaryMetrics").entrySet()) {
+                    if (m.getKey().endsWith(ALLOC)) {
+                        double bytes = m.getValue().getAsJsonObject().get("score").getAsDouble();
+                        metrics.put(key + " " + ALLOC, new Metric(ALLOC, bytes, false));
+                    }
+                }
+            }
+        }
+        return metrics;
+    }
+}
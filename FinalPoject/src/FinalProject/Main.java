@@ -1,13 +1,78 @@
 package FinalProject;
 
+import FinalProject.dao.DiaryCache;
+import FinalProject.dao.DiaryDAO;
+import FinalProject.export.PdfExporter;
+import FinalProject.metrics.Metrics;
+import FinalProject.metrics.MetricsExporter;
+import FinalProject.service.DiaryService;
+import FinalProject.store.MappedDiaryStore;
+import FinalProject.util.DBUtil;
 import FinalProject.view.HomeView;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
 public class Main extends Application {
+    private HomeView home;
+
+    @Override
+    public void init() throws Exception {
+        boolean offline = getParameters().getRaw().contains("--offline")
+            || "local".equals(DBUtil.getSetting("store.mode", "mysql"));
+        if (offline) {
+            Path file = Path.of(DBUtil.getSetting("store.localFile", "data/diary.dat"));
+            DiaryDAO.setStore(MappedDiaryStore.open(file));
+            System.out.println("💾 離線模式：" + file.toAbsolutePath());
+        }
+        registerMetrics();
+
+        // 以下都在背景進行，不等它們完成就開始建立視窗
+        if (!offline) Thread.ofVirtual().name("db-warmup").start(DBUtil::warmUp);
+        PdfExporter.preloadFont();
+        home = new HomeView();
+    }
+
     @Override
     public void start(Stage primaryStage) {
-        new HomeView().show();
+        home.show();
+        long window = uptime();
+        home.loaded().thenRunAsync(() -> {
+            long data = uptime();
+            Metrics.histogram(Metrics.VIEW, "startup.window").record(window * 1_000_000);
+            Metrics.histogram(Metrics.VIEW, "startup.firstPage").record(data * 1_000_000);
+            System.out.println("🚀 啟動時間：視窗 " + window + " ms，第一頁日記 " + data + " ms");
+        }, DiaryService.FX);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        MetricsExporter.stop();
+        DiaryService.shutdown();
+        DBUtil.shutdown();
+        if (DiaryDAO.getStore() instanceof Closeable c) c.close();
+    }
+
+    private static void registerMetrics() {
+        Metrics.gauge("diary_db_pool_active", "連線池中借出的連線數", () -> DBUtil.getPoolStats().active());
+        Metrics.gauge("diary_db_pool_idle", "連線池中閒置的連線數", () -> DBUtil.getPoolStats().idle());
+        Metrics.gauge("diary_db_pool_timeouts", "等不到連線而逾時的次數", () -> DBUtil.getPoolStats().timeoutCount());
+        Metrics.gauge("diary_cache_hit_ratio", "DiaryCache 命中率", () -> DiaryCache.getStats().hitRate());
+        Metrics.gauge("diary_cache_entries", "DiaryCache 中的完整日記篇數", () -> DiaryCache.getStats().entries());
+        Metrics.gauge("diary_cache_bytes", "DiaryCache 佔用的記憶體（估計）", () -> DiaryCache.getStats().bytes());
+
+        long interval = Long.parseLong(DBUtil.getSetting("metrics.exportIntervalSec", "15"));
+        if (interval > 0) {
+            MetricsExporter.start(Path.of(DBUtil.getSetting("metrics.file", "metrics/diary.prom")), interval);
+        }
+    }
+
+    // JVM 啟動到現在的毫秒數，包含類別載入與 JavaFX 初始化
+    private static long uptime() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
     }
 
     public static void main(String[] args) {
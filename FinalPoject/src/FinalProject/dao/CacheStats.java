@@ -0,0 +1,22 @@
+package FinalProject.dao;
+
+public record CacheStats(
+    long hits,
+    long misses,
+    long evictions,
+    int entries,
+    long bytes
+) {
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "hits=%d misses=%d hitRate=%.1f%% evictions=%d entries=%d bytes=%d",
+            hits, misses, hitRate() * 100, evictions, entries, bytes
+        );
+    }
+}
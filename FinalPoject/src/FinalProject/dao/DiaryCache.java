@@ -0,0 +1,236 @@
+package FinalProject.dao;
+
+import FinalProject.model.Diary;
+import FinalProject.model.DiarySummary;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 放在 DiaryDAO 前面的記憶體快取，以日期為 key。
+ * <p>
+ * 完整日記以 LRU 保存，同時受篇數與內容大小限制；摘要另外記錄「已知完整」的範圍
+ * （最新往回到 coveredFrom，以及整月載入過的月份），範圍內的列表、月曆與空白日期
+ * 都不必再查資料庫。saveDiary 會先寫入資料庫，成功後同步更新快取（write-through）。
+ * <p>
+ * 讀取失敗（{@link DiaryStoreException}）時不記錄任何範圍，例外直接丟給呼叫端，
+ * 由畫面顯示錯誤，而不是當成沒有日記；下次再查資料庫。回傳的 Diary 都是複本，呼叫端修改不會影響快取。
+ */
+public class DiaryCache {
+    private static final int MAX_ENTRIES = 200;
+    private static final long MAX_BYTES = 8L * 1024 * 1024;
+
+    private static final LinkedHashMap<String, Diary> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private static final TreeMap<String, DiarySummary> summaries = new TreeMap<>();
+    private static final Set<YearMonth> loadedMonths = new HashSet<>();
+    // 日期 >= coveredFrom 的摘要都在 summaries 裡；exhausted 表示資料庫沒有更舊的日記
+    private static String coveredFrom;
+    private static boolean exhausted;
+    private static long bytes;
+    // 每次寫入或失效加一；在鎖外讀資料庫的期間有寫入的話，讀到的可能是舊版本，不放進快取
+    private static long generation;
+
+    private static long hits;
+    private static long misses;
+    private static long evictions;
+
+    public static Diary loadDiary(String date) {
+        long seen;
+        synchronized (DiaryCache.class) {
+            Diary d = entries.get(date);
+            if (d != null || (isKnown(date) && !summaries.containsKey(date))) {
+                hits++;
+                return d == null ? null : copy(d);
+            }
+            misses++;
+            seen = generation;
+        }
+        Diary d = DiaryDAO.loadDiary(date);
+        if (d != null) {
+            synchronized (DiaryCache.class) {
+                if (generation == seen && !entries.containsKey(date)) putEntry(copy(d));
+            }
+        }
+        return d;
+    }
+
+    /** 多篇日記的內容（搜尋片段用），快取裡有的直接取用，其餘一次向資料庫查詢；讀到的內容不放進快取。 */
+    public static Map<String, String> loadContents(Collection<String> dates) {
+        Map<String, String> map = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (DiaryCache.class) {
+            for (String date : dates) {
+                Diary d = entries.get(date);
+                if (d != null) {
+                    hits++;
+                    map.put(date, d.getContent());
+                } else if (isKnown(date) && !summaries.containsKey(date)) {
+                    hits++;
+                } else {
+                    misses++;
+                    missing.add(date);
+                }
+            }
+        }
+        if (!missing.isEmpty()) map.putAll(DiaryDAO.loadContents(missing));
+        return map;
+    }
+
+    public static boolean saveDiary(Diary diary) {
+        boolean ok = DiaryDAO.saveDiary(diary);
+        synchronized (DiaryCache.class) {
+            generation++;
+            if (ok) {
+                putEntry(copy(diary));
+                summaries.put(diary.getDate(), summaryOf(diary));
+            } else {
+                invalidate(diary.getDate());
+            }
+        }
+        return ok;
+    }
+
+    /** 與 DiaryDAO.getDiariesBefore 相同，已知範圍內直接由記憶體回傳。 */
+    public static List<DiarySummary> getDiariesBefore(String before, int limit) {
+        long seen;
+        synchronized (DiaryCache.class) {
+            if (before == null || inListRange(before)) {
+                NavigableMap<String, DiarySummary> known = before == null
+                    ? summaries.descendingMap()
+                    : summaries.headMap(before, false).descendingMap();
+                List<DiarySummary> page = new ArrayList<>(limit);
+                for (DiarySummary s : known.values()) {
+                    if (page.size() == limit || !inListRange(s.getDate())) break;
+                    page.add(s);
+                }
+                if (page.size() == limit || exhausted) {
+                    hits++;
+                    return page;
+                }
+            }
+            misses++;
+            seen = generation;
+        }
+
+        List<DiarySummary> page = DiaryDAO.getDiariesBefore(before, limit);
+        synchronized (DiaryCache.class) {
+            // 讀取期間有寫入的話，這一頁可能少了剛存的日記，只回傳、不記錄範圍
+            if (generation != seen) return page;
+            for (DiarySummary s : page) summaries.put(s.getDate(), s);
+            if (before == null || inListRange(before)) {
+                if (page.size() < limit) {
+                    exhausted = true;
+                } else {
+                    String last = page.get(page.size() - 1).getDate();
+                    if (coveredFrom == null || last.compareTo(coveredFrom) < 0) coveredFrom = last;
+                }
+            }
+        }
+        return page;
+    }
+
+    /** 與 DiaryDAO.getMonthSummary 相同，整月載入過就不再查詢。 */
+    public static Map<String, DiarySummary> getMonthSummary(YearMonth month) {
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+        long seen;
+        synchronized (DiaryCache.class) {
+            if (loadedMonths.contains(month) || inListRange(from)) {
+                hits++;
+                Map<String, DiarySummary> map = new LinkedHashMap<>();
+                for (DiarySummary s : summaries.subMap(from, true, to, false).descendingMap().values()) {
+                    map.put(s.getDate(), s);
+                }
+                return map;
+            }
+            misses++;
+            seen = generation;
+        }
+
+        Map<String, DiarySummary> map = DiaryDAO.getMonthSummary(month);
+        synchronized (DiaryCache.class) {
+            if (generation != seen) return map;
+            summaries.putAll(map);
+            loadedMonths.add(month);
+        }
+        return map;
+    }
+
+    public static synchronized void invalidate(String date) {
+        generation++;
+        Diary old = entries.remove(date);
+        if (old != null) bytes -= sizeOf(old);
+        summaries.remove(date);
+        loadedMonths.remove(YearMonth.parse(date.substring(0, 7)));
+        if (inListRange(date)) {
+            // 範圍縮到這一天之後，下次列表會重新查詢
+            coveredFrom = date + "\0";
+            exhausted = false;
+        }
+    }
+
+    public static synchronized void clear() {
+        generation++;
+        entries.clear();
+        summaries.clear();
+        loadedMonths.clear();
+        coveredFrom = null;
+        exhausted = false;
+        bytes = 0;
+    }
+
+    public static synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, entries.size(), bytes);
+    }
+
+    // 以下呼叫端需持有 DiaryCache 的鎖
+
+    /** 列表用的連續範圍：從最新一路往回到 coveredFrom。 */
+    private static boolean inListRange(String date) {
+        return exhausted || (coveredFrom != null && date.compareTo(coveredFrom) >= 0);
+    }
+
+    /** 這一天有沒有日記是否已確定（列表範圍或整月載入過）。 */
+    private static boolean isKnown(String date) {
+        return inListRange(date) || loadedMonths.contains(YearMonth.parse(date.substring(0, 7)));
+    }
+
+    private static void putEntry(Diary d) {
+        Diary old = entries.put(d.getDate(), d);
+        if (old != null) bytes -= sizeOf(old);
+        bytes += sizeOf(d);
+        Iterator<Diary> it = entries.values().iterator();
+        while ((entries.size() > MAX_ENTRIES || bytes > MAX_BYTES) && it.hasNext()) {
+            Diary eldest = it.next();
+            if (eldest == d) break;
+            it.remove();
+            bytes -= sizeOf(eldest);
+            evictions++;
+        }
+    }
+
+    private static long sizeOf(Diary d) {
+        long chars = 0;
+        if (d.getContent() != null) chars += d.getContent().length();
+        if (d.getImagePath() != null) chars += d.getImagePath().length();
+        return chars * 2;
+    }
+
+    private static Diary copy(Diary d) {
+        return new Diary(d.getDate(), d.getMood(), d.getWeather(), d.getContent(), d.getImagePath());
+    }
+
+    private static DiarySummary summaryOf(Diary d) {
+        return new DiarySummary(d.getDate(), d.getMood(), d.getWeather(), d.getImagePath() != null);
+    }
+}
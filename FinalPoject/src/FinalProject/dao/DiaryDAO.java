@@ -1,82 +1,135 @@
 package FinalProject.dao;
 
+import FinalProject.metrics.Metrics;
 import FinalProject.model.Diary;
-import FinalProject.util.DBUtil;
+import FinalProject.model.DiarySummary;
 
-import java.sql.*;
-import java.util.ArrayList;
+import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+/**
+ * 日記存取的進入點，實際讀寫交給啟動時選定的 DiaryStore，預設為遠端 MySQL。
+ * 每個方法的耗時都記錄在 {@link Metrics#DAO}。
+ */
 public class DiaryDAO {
+    private static volatile DiaryStore store = new JdbcDiaryStore();
 
-    public static void saveDiary(Diary diary) {
-        String sql = """
-            INSERT INTO diary (diary_date, mood, weather, content, image_path)
-            VALUES (?, ?, ?, ?, ?)
-            ON DUPLICATE KEY UPDATE
-                mood = VALUES(mood),
-                weather = VALUES(weather),
-                content = VALUES(content),
-                image_path = VALUES(image_path)
-            """;
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, diary.getDate());
-            stmt.setString(2, diary.getMood());
-            stmt.setString(3, diary.getWeather());
-            stmt.setString(4, diary.getContent());
-            stmt.setString(5, diary.getImagePath());
-            stmt.executeUpdate();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+    public static void setStore(DiaryStore s) {
+        store = s;
+    }
+
+    public static DiaryStore getStore() {
+        return store;
+    }
+
+    public static boolean saveDiary(Diary diary) {
+        long t = System.nanoTime();
+        try {
+            return store.saveDiary(diary);
+        } finally {
+            Metrics.time(Metrics.DAO, "saveDiary", t);
+        }
+    }
+
+    public static boolean saveBatch(List<Diary> diaries) {
+        long t = System.nanoTime();
+        try {
+            return store.saveBatch(diaries);
+        } finally {
+            Metrics.time(Metrics.DAO, "saveBatch", t);
+        }
+    }
+
+    public static int insertMissing(List<Diary> diaries) {
+        long t = System.nanoTime();
+        try {
+            return store.insertMissing(diaries);
+        } finally {
+            Metrics.time(Metrics.DAO, "insertMissing", t);
         }
     }
 
     public static Diary loadDiary(String date) {
-        String sql = "SELECT * FROM diary WHERE diary_date = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, date);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return new Diary(
-                    date,
-                    rs.getString("mood"),
-                    rs.getString("weather"),
-                    rs.getString("content"),
-                    rs.getString("image_path")
-                );
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+        long t = System.nanoTime();
+        try {
+            return store.loadDiary(date);
+        } finally {
+            Metrics.time(Metrics.DAO, "loadDiary", t);
+        }
+    }
+
+    public static Map<String, String> loadContents(Collection<String> dates) {
+        long t = System.nanoTime();
+        try {
+            return store.loadContents(dates);
+        } finally {
+            Metrics.time(Metrics.DAO, "loadContents", t);
+        }
+    }
+
+    public static Map<String, Diary> loadDiaries(Collection<String> dates) {
+        long t = System.nanoTime();
+        try {
+            return store.loadDiaries(dates);
+        } finally {
+            Metrics.time(Metrics.DAO, "loadDiaries", t);
         }
-        return null;
     }
 
     public static List<Diary> getAllDiaries() {
-        List<Diary> list = new ArrayList<>();
-        String sql = "SELECT * FROM diary ORDER BY diary_date DESC";
-        try (Connection conn = DBUtil.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                list.add(new Diary(
-                    rs.getString("diary_date"),
-                    rs.getString("mood"),
-                    rs.getString("weather"),
-                    rs.getString("content"),
-                    rs.getString("image_path")
-                ));
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+        long t = System.nanoTime();
+        try {
+            return store.getAllDiaries();
+        } finally {
+            Metrics.time(Metrics.DAO, "getAllDiaries", t);
+        }
+    }
+
+    public static void forEachDiary(Consumer<Diary> action) {
+        long t = System.nanoTime();
+        try {
+            store.forEachDiary(action);
+        } finally {
+            Metrics.time(Metrics.DAO, "forEachDiary", t);
+        }
+    }
+
+    public static List<DiarySummary> getDiariesBefore(String before, int limit) {
+        long t = System.nanoTime();
+        try {
+            return store.getDiariesBefore(before, limit);
+        } finally {
+            Metrics.time(Metrics.DAO, "getDiariesBefore", t);
+        }
+    }
+
+    public static List<DiarySummary> getDiariesMatching(int moodMask, int weatherMask, String before, int limit) {
+        long t = System.nanoTime();
+        try {
+            return store.getDiariesMatching(moodMask, weatherMask, before, limit);
+        } finally {
+            Metrics.time(Metrics.DAO, "getDiariesMatching", t);
+        }
+    }
+
+    public static List<DiarySummary> getDiariesInMonth(YearMonth month) {
+        long t = System.nanoTime();
+        try {
+            return store.getDiariesInMonth(month);
+        } finally {
+            Metrics.time(Metrics.DAO, "getDiariesInMonth", t);
+        }
+    }
+
+    public static Map<String, DiarySummary> getMonthSummary(YearMonth month) {
+        long t = System.nanoTime();
+        try {
+            return store.getMonthSummary(month);
+        } finally {
+            Metrics.time(Metrics.DAO, "getMonthSummary", t);
         }
-        return list;
     }
-}
\ No newline at end of file
+}
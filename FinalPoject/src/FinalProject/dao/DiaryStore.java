@@ -0,0 +1,112 @@
+package FinalProject.dao;
+
+import FinalProject.model.Diary;
+import FinalProject.model.DiarySummary;
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 日記的儲存後端，DiaryDAO 在啟動時選定一個實作（遠端 MySQL 或本機離線檔）。
+ * 寫入失敗時回傳 false；讀取失敗時丟出 {@link DiaryStoreException}，不會回傳空結果或 null。
+ */
+public interface DiaryStore {
+
+    /** 新增或更新一篇日記，成功寫入時回傳 true。 */
+    boolean saveDiary(Diary diary);
+
+    /** 一次寫入多篇日記，全部成功才回傳 true，失敗時整批都不寫入。 */
+    boolean saveBatch(List<Diary> diaries);
+
+    /**
+     * 只新增還沒有日記的日期，已經有的日記（內容與圖片）完全不動，給匯入舊檔案用。
+     * 回傳新增的篇數；失敗時回傳 -1，整批都不寫入。預設先查出已有的日期再 saveBatch 其餘的。
+     */
+    default int insertMissing(List<Diary> diaries) {
+        try {
+            Map<String, String> existing = loadContents(diaries.stream().map(Diary::getDate).toList());
+            List<Diary> missing = diaries.stream().filter(d -> !existing.containsKey(d.getDate())).toList();
+            if (missing.isEmpty()) return 0;
+            return saveBatch(missing) ? missing.size() : -1;
+        } catch (DiaryStoreException e) {
+            return -1;
+        }
+    }
+
+    Diary loadDiary(String date);
+
+    /**
+     * 一次取得多篇日記的內容，key 為日期；沒有日記的日期不會出現在結果裡。
+     * 預設逐篇 loadDiary，資料庫實作改用一次 IN (...) 查詢。
+     */
+    default Map<String, String> loadContents(Collection<String> dates) {
+        Map<String, String> map = new HashMap<>();
+        for (String date : dates) {
+            Diary d = loadDiary(date);
+            if (d != null) map.put(date, d.getContent());
+        }
+        return map;
+    }
+
+    /**
+     * 一次取得多篇完整的日記，key 為日期；沒有日記的日期不會出現在結果裡。
+     * 預設逐篇 loadDiary，資料庫實作改用一次 IN (...) 查詢。
+     */
+    default Map<String, Diary> loadDiaries(Collection<String> dates) {
+        Map<String, Diary> map = new HashMap<>();
+        for (String date : dates) {
+            Diary d = loadDiary(date);
+            if (d != null) map.put(date, d);
+        }
+        return map;
+    }
+
+    List<Diary> getAllDiaries();
+
+    /** 依日期由新到舊逐篇處理所有日記，不會一次把全部內容載入記憶體。 */
+    void forEachDiary(Consumer<Diary> action);
+
+    /**
+     * 取得早於 before 的最新 limit 篇日記摘要（依日期由新到舊）。
+     * before 為 null 時從最新一篇開始；下一頁請傳入本頁最後一篇的日期。
+     */
+    List<DiarySummary> getDiariesBefore(String before, int limit);
+
+    /**
+     * 與 {@link #getDiariesBefore} 相同，但只回傳心情、天氣符合篩選的日記。
+     * moodMask / weatherMask 是 {@link Mood#bit()}、{@link Weather#bit()} 的組合，0 表示不篩選。
+     * 預設逐頁讀摘要再篩選，資料庫實作改用索引查詢。
+     */
+    default List<DiarySummary> getDiariesMatching(int moodMask, int weatherMask, String before, int limit) {
+        List<DiarySummary> list = new ArrayList<>();
+        while (list.size() < limit) {
+            List<DiarySummary> page = getDiariesBefore(before, limit);
+            for (DiarySummary s : page) {
+                if (s.matches(moodMask, weatherMask) && list.size() < limit) list.add(s);
+            }
+            if (page.size() < limit) break;
+            before = page.get(page.size() - 1).getDate();
+        }
+        return list;
+    }
+
+    /** 取得某個月份的所有日記摘要（依日期由新到舊）。 */
+    List<DiarySummary> getDiariesInMonth(YearMonth month);
+
+    /** 一次查詢取得整個月份的摘要，key 為 yyyy-MM-dd 日期字串。 */
+    default Map<String, DiarySummary> getMonthSummary(YearMonth month) {
+        Map<String, DiarySummary> map = new LinkedHashMap<>();
+        for (DiarySummary s : getDiariesInMonth(month)) {
+            map.put(s.getDate(), s);
+        }
+        return map;
+    }
+}
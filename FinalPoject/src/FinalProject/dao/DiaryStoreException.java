@@ -0,0 +1,13 @@
+package FinalProject.dao;
+
+/**
+ * 儲存後端讀取失敗（例如資料庫斷線）。與「查無資料」分開，
+ * 呼叫端（尤其是 {@link DiaryCache}）才不會把空結果當成真的沒有日記。
+ */
+public class DiaryStoreException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public DiaryStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,440 @@
+package FinalProject.dao;
+
+import FinalProject.metrics.Metrics;
+import FinalProject.model.Diary;
+import FinalProject.model.DiarySummary;
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+import FinalProject.util.DBUtil;
+
+import java.sql.*;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 以遠端 MySQL 的 diary 資料表儲存日記，連線由 DBUtil 的連線池提供。
+ * 心情與天氣存成 TINYINT code（mood_code、weather_code，見 {@link Mood#code()}、{@link Weather#code()}）。
+ * <p>
+ * 資料表由管理者以 {@link MoodCodeMigration} 轉換，這裡不改結構，只在第一次連線時讀一次欄位：
+ * 還沒轉換時讀寫文字欄位；新舊欄位都在時兩邊一起寫（舊版用戶端仍看得到），
+ * 並把舊版用戶端只寫了文字的列補上 code，code 還沒補上的列讀取時以文字為準。
+ */
+public class JdbcDiaryStore implements DiaryStore {
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static volatile MoodCodeMigration.Columns columns;
+
+    @Override
+    public boolean saveDiary(Diary diary) {
+        try (Connection conn = connection();
+             PreparedStatement stmt = conn.prepareStatement(upsertSql())) {
+
+            bindUpsert(stmt, diary);
+            stmt.executeUpdate();
+            return true;
+
+        } catch (SQLException e) {
+            failed("saveDiary", e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean saveBatch(List<Diary> diaries) {
+        if (diaries.isEmpty()) return true;
+        try (Connection conn = connection();
+             PreparedStatement stmt = conn.prepareStatement(upsertSql())) {
+
+            conn.setAutoCommit(false);
+            try {
+                for (Diary d : diaries) {
+                    bindUpsert(stmt, d);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            failed("saveBatch", e);
+            return false;
+        }
+    }
+
+    @Override
+    public int insertMissing(List<Diary> diaries) {
+        if (diaries.isEmpty()) return 0;
+        String select = "SELECT diary_date FROM diary WHERE diary_date IN ("
+            + String.join(",", Collections.nCopies(diaries.size(), "?")) + ")";
+        try (Connection conn = connection()) {
+            conn.setAutoCommit(false);
+            // 同一個交易裡先查出已有的日期；查詢之後才被別人新增的日期碰到主鍵時什麼都不改
+            try (PreparedStatement query = conn.prepareStatement(select);
+                 PreparedStatement stmt = conn.prepareStatement(
+                     insertSql(writeColumns()) + " ON DUPLICATE KEY UPDATE diary_date = diary_date")) {
+
+                int i = 1;
+                for (Diary d : diaries) query.setString(i++, d.getDate());
+                Set<String> existing = new HashSet<>();
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) existing.add(rs.getString("diary_date"));
+                }
+                int added = 0;
+                for (Diary d : diaries) {
+                    if (existing.contains(d.getDate())) continue;
+                    bindUpsert(stmt, d);
+                    stmt.addBatch();
+                    added++;
+                }
+                if (added > 0) stmt.executeBatch();
+                conn.commit();
+                return added;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            failed("insertMissing", e);
+            return -1;
+        }
+    }
+
+    @Override
+    public Diary loadDiary(String date) {
+        String sql = "SELECT * FROM diary WHERE diary_date = ?";
+        try (Connection conn = connection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, date);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return new Diary(
+                    date,
+                    mood(rs),
+                    weather(rs),
+                    rs.getString("content"),
+                    rs.getString("image_path")
+                );
+            }
+
+        } catch (SQLException e) {
+            throw failed("loadDiary", e);
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, String> loadContents(Collection<String> dates) {
+        Map<String, String> map = new HashMap<>();
+        if (dates.isEmpty()) return map;
+        String sql = "SELECT diary_date, content FROM diary WHERE diary_date IN ("
+            + String.join(",", Collections.nCopies(dates.size(), "?")) + ")";
+        try (Connection conn = connection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            for (String date : dates) stmt.setString(i++, date);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) map.put(rs.getString("diary_date"), rs.getString("content"));
+            }
+
+        } catch (SQLException e) {
+            throw failed("loadContents", e);
+        }
+        return map;
+    }
+
+    @Override
+    public Map<String, Diary> loadDiaries(Collection<String> dates) {
+        Map<String, Diary> map = new HashMap<>();
+        if (dates.isEmpty()) return map;
+        String sql = "SELECT * FROM diary WHERE diary_date IN ("
+            + String.join(",", Collections.nCopies(dates.size(), "?")) + ")";
+        try (Connection conn = connection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            for (String date : dates) stmt.setString(i++, date);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Diary d = new Diary(
+                        rs.getString("diary_date"),
+                        mood(rs),
+                        weather(rs),
+                        rs.getString("content"),
+                        rs.getString("image_path")
+                    );
+                    map.put(d.getDate(), d);
+                }
+            }
+
+        } catch (SQLException e) {
+            throw failed("loadDiaries", e);
+        }
+        return map;
+    }
+
+    @Override
+    public List<Diary> getAllDiaries() {
+        List<Diary> list = new ArrayList<>();
+        String sql = "SELECT * FROM diary ORDER BY diary_date DESC";
+        try (Connection conn = connection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                list.add(new Diary(
+                    rs.getString("diary_date"),
+                    mood(rs),
+                    weather(rs),
+                    rs.getString("content"),
+                    rs.getString("image_path")
+                ));
+            }
+
+        } catch (SQLException e) {
+            throw failed("getAllDiaries", e);
+        }
+        return list;
+    }
+
+    @Override
+    public void forEachDiary(Consumer<Diary> action) {
+        String sql = "SELECT * FROM diary ORDER BY diary_date DESC";
+        try (Connection conn = connection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // MySQL Connector/J 以 Integer.MIN_VALUE 表示逐列串流，不把整個結果集放進記憶體；
+            // 其他資料庫（例如測試用的 H2）不接受負數，改成分批取回
+            boolean mysql = conn.getMetaData().getURL().startsWith("jdbc:mysql:");
+            stmt.setFetchSize(mysql ? Integer.MIN_VALUE : STREAM_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    action.accept(new Diary(
+                        rs.getString("diary_date"),
+                        mood(rs),
+                        weather(rs),
+                        rs.getString("content"),
+                        rs.getString("image_path")
+                    ));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw failed("forEachDiary", e);
+        }
+    }
+
+    @Override
+    public List<DiarySummary> getDiariesBefore(String before, int limit) {
+        String where = before == null ? "" : " WHERE diary_date < ?";
+        List<DiarySummary> list = new ArrayList<>();
+        try (Connection conn = connection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT " + summaryColumns() + " FROM diary" + where + " ORDER BY diary_date DESC LIMIT ?")) {
+
+            int i = 1;
+            if (before != null) stmt.setString(i++, before);
+            stmt.setInt(i, limit);
+            readSummaries(stmt, list);
+
+        } catch (SQLException e) {
+            throw failed("getDiariesBefore", e);
+        }
+        return list;
+    }
+
+    @Override
+    public List<DiarySummary> getDiariesMatching(int moodMask, int weatherMask, String before, int limit) {
+        // 還沒轉換成 code 的資料表只能逐頁讀摘要再篩選
+        if (!columns().codes()) return DiaryStore.super.getDiariesMatching(moodMask, weatherMask, before, limit);
+        // 遮罩展開成 IN (...)，由 (mood_code, weather_code, diary_date) 索引篩選，不必讀回其他日記
+        StringBuilder sql = new StringBuilder("SELECT ").append(summaryColumns()).append(" FROM diary WHERE 1 = 1");
+        if (moodMask != 0) sql.append(" AND mood_code IN (").append(codes(moodMask)).append(')');
+        if (weatherMask != 0) sql.append(" AND weather_code IN (").append(codes(weatherMask)).append(')');
+        if (before != null) sql.append(" AND diary_date < ?");
+        sql.append(" ORDER BY diary_date DESC LIMIT ?");
+        List<DiarySummary> list = new ArrayList<>();
+        try (Connection conn = connection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int i = 1;
+            if (before != null) stmt.setString(i++, before);
+            stmt.setInt(i, limit);
+            readSummaries(stmt, list);
+
+        } catch (SQLException e) {
+            throw failed("getDiariesMatching", e);
+        }
+        return list;
+    }
+
+    @Override
+    public List<DiarySummary> getDiariesInMonth(YearMonth month) {
+        List<DiarySummary> list = new ArrayList<>();
+        try (Connection conn = connection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT " + summaryColumns() + " FROM diary"
+                 + " WHERE diary_date >= ? AND diary_date < ? ORDER BY diary_date DESC")) {
+
+            stmt.setString(1, month.atDay(1).toString());
+            stmt.setString(2, month.plusMonths(1).atDay(1).toString());
+            readSummaries(stmt, list);
+
+        } catch (SQLException e) {
+            throw failed("getDiariesInMonth", e);
+        }
+        return list;
+    }
+
+    // 第一次取得連線時讀一次欄位；新舊欄位都在時順便補上舊版用戶端寫入的列（只改資料，補不了也照常使用）
+    private static Connection connection() throws SQLException {
+        Connection conn = DBUtil.getConnection();
+        if (columns == null) {
+            synchronized (JdbcDiaryStore.class) {
+                if (columns == null) {
+                    try {
+                        MoodCodeMigration.Columns c = MoodCodeMigration.columns(conn);
+                        if (c.codes() && c.labels()) backfill(conn);
+                        columns = c;
+                    } catch (SQLException e) {
+                        conn.close();
+                        throw e;
+                    }
+                }
+            }
+        }
+        return conn;
+    }
+
+    private static MoodCodeMigration.Columns columns() {
+        if (columns == null) {
+            // 取得連線時就會讀欄位
+            try {
+                connection().close();
+            } catch (SQLException e) {
+                throw failed("columns", e);
+            }
+        }
+        return columns;
+    }
+
+    private static void backfill(Connection conn) {
+        try {
+            Map<String, Integer> unknown = MoodCodeMigration.backfill(conn);
+            if (!unknown.isEmpty()) {
+                System.err.println("⚠️ 有 " + unknown.size() + " 種心情 / 天氣文字認不得，這些日記的 code 保持 0："
+                    + unknown.keySet());
+            }
+        } catch (SQLException e) {
+            Metrics.count(Metrics.DB_ERRORS, "backfill");
+            e.printStackTrace();
+        }
+    }
+
+    private static String summaryColumns() {
+        return "diary_date, " + moodColumns() + ", image_path IS NOT NULL AS has_image";
+    }
+
+    private static String moodColumns() {
+        MoodCodeMigration.Columns c = columns;
+        if (!c.labels()) return "mood_code, weather_code";
+        return c.codes() ? "mood_code, weather_code, mood, weather" : "mood, weather";
+    }
+
+    private static String[] writeColumns() {
+        return ("diary_date, " + moodColumns() + ", content, image_path").split(", ");
+    }
+
+    private static String insertSql(String[] cols) {
+        return "INSERT INTO diary (" + String.join(", ", cols) + ") VALUES ("
+            + String.join(", ", Collections.nCopies(cols.length, "?")) + ")";
+    }
+
+    private static String upsertSql() {
+        String[] cols = writeColumns();
+        StringBuilder sql = new StringBuilder(insertSql(cols)).append(" ON DUPLICATE KEY UPDATE ");
+        for (int i = 1; i < cols.length; i++) {
+            if (i > 1) sql.append(", ");
+            sql.append(cols[i]).append(" = VALUES(").append(cols[i]).append(')');
+        }
+        return sql.toString();
+    }
+
+    // code 是 0 而文字有值的列是舊版用戶端寫的、還沒補上 code，以文字為準
+    private static Mood mood(ResultSet rs) throws SQLException {
+        MoodCodeMigration.Columns c = columns;
+        Mood m = c.codes() ? Mood.of(rs.getByte("mood_code")) : Mood.UNSET;
+        return m == Mood.UNSET && c.labels() ? Mood.fromLabel(rs.getString("mood")) : m;
+    }
+
+    private static Weather weather(ResultSet rs) throws SQLException {
+        MoodCodeMigration.Columns c = columns;
+        Weather w = c.codes() ? Weather.of(rs.getByte("weather_code")) : Weather.UNSET;
+        return w == Weather.UNSET && c.labels() ? Weather.fromLabel(rs.getString("weather")) : w;
+    }
+
+    // 遮罩的每個 bit 是一個 code，例如 0b1010 → "1,3"
+    private static String codes(int mask) {
+        StringBuilder sb = new StringBuilder();
+        for (int code = 0; code < Integer.SIZE; code++) {
+            if ((mask >>> code & 1) == 0) continue;
+            if (sb.length() > 0) sb.append(',');
+            sb.append(code);
+        }
+        return sb.toString();
+    }
+
+    // 錯誤仍然印出來，另外計入 diary_db_errors_total 方便從診斷視窗看到；
+    // 讀取失敗時由呼叫端丟出回傳的例外，不回傳空結果
+    private static DiaryStoreException failed(String op, SQLException e) {
+        Metrics.count(Metrics.DB_ERRORS, op);
+        e.printStackTrace();
+        return new DiaryStoreException(op + " 失敗：" + e.getMessage(), e);
+    }
+
+    private void bindUpsert(PreparedStatement stmt, Diary diary) throws SQLException {
+        MoodCodeMigration.Columns c = columns;
+        int i = 1;
+        stmt.setString(i++, diary.getDate());
+        if (c.codes()) {
+            stmt.setByte(i++, diary.getMood().code());
+            stmt.setByte(i++, diary.getWeather().code());
+        }
+        if (c.labels()) {
+            stmt.setString(i++, diary.getMood().label());
+            stmt.setString(i++, diary.getWeather().label());
+        }
+        stmt.setString(i++, diary.getContent());
+        stmt.setString(i, diary.getImagePath());
+    }
+
+    private void readSummaries(PreparedStatement stmt, List<DiarySummary> list) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                list.add(new DiarySummary(
+                    rs.getString("diary_date"),
+                    mood(rs),
+                    weather(rs),
+                    rs.getBoolean("has_image")
+                ));
+            }
+        }
+    }
+}
\ No newline at end of file
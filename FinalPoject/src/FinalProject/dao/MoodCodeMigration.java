@@ -0,0 +1,193 @@
+package FinalProject.dao;
+
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+import FinalProject.util.DBUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * 把 diary 資料表的心情 / 天氣從表情符號字串（VARCHAR mood、weather）轉成 TINYINT code（mood_code、weather_code）。
+ * <p>
+ * diary 資料表是好幾個用戶端共用的，桌面程式平常不改資料表結構：JdbcDiaryStore 依現有的欄位讀寫，
+ * 新舊欄位都在的期間兩邊一起寫，舊版用戶端只寫文字欄位的列在啟動時由 {@link #backfill} 補上 code。
+ * 結構的變更由管理者手動執行：
+ * <pre>
+ * java FinalProject.dao.MoodCodeMigration                 備份、加上 code 欄位與索引、轉換，列出認不得的值
+ * java FinalProject.dao.MoodCodeMigration --drop-legacy   全部轉換好之後刪掉文字欄位（之後舊版用戶端就不能用了）
+ * </pre>
+ * 動 diary 之前先把原本的文字複製到 diary_mood_backup。文字以 {@link Mood#fromLabel}、{@link Weather#fromLabel}
+ * 對照（包含舊版的寫法），認不得的值不會被改掉，只列出來並保持 code 0，文字仍在原欄位與備份表裡。
+ * MySQL 的 DDL 不能放在交易裡，每一步都先檢查目前的狀態，中途失敗時重新執行即可。
+ */
+public final class MoodCodeMigration {
+    static final String INDEX = "idx_diary_mood_weather_date";
+    static final String BACKUP = "diary_mood_backup";
+
+    /** diary 資料表現有的欄位：codes 是 mood_code / weather_code，labels 是舊的文字欄位。 */
+    record Columns(boolean codes, boolean labels) {
+    }
+
+    private MoodCodeMigration() {
+    }
+
+    public static void main(String[] args) throws SQLException {
+        try (Connection conn = DBUtil.getConnection()) {
+            if (Arrays.asList(args).contains("--drop-legacy")) dropLegacy(conn);
+            else migrate(conn);
+        } finally {
+            DBUtil.shutdown();
+        }
+    }
+
+    static Columns columns(Connection conn) throws SQLException {
+        Map<String, String> types = columnTypes(conn);
+        boolean codes = types.containsKey("mood_code") && types.containsKey("weather_code");
+        boolean labels = isText(types.get("mood")) && isText(types.get("weather"));
+        // 兩種都沒有的話（例如還沒有資料表）照新的欄位讀寫，錯誤由查詢本身回報
+        return new Columns(codes || !labels, labels);
+    }
+
+    /** 備份文字欄位、加上 code 欄位與索引，再轉換現有的列。可以重複執行。 */
+    static void migrate(Connection conn) throws SQLException {
+        Map<String, String> types = columnTypes(conn);
+        if (types.isEmpty()) {
+            System.out.println("找不到 diary 資料表");
+            return;
+        }
+        boolean labels = isText(types.get("mood")) && isText(types.get("weather"));
+        // 每個 ALTER 只改一個欄位（H2 的 MySQL 相容模式不接受多個子句）
+        try (Statement st = conn.createStatement()) {
+            if (labels && !hasTable(conn, BACKUP)) {
+                // 先寫到暫存表再改名，中途失敗不會留下不完整的備份
+                st.executeUpdate("DROP TABLE IF EXISTS " + BACKUP + "_tmp");
+                st.executeUpdate("CREATE TABLE " + BACKUP + "_tmp AS SELECT diary_date, mood, weather FROM diary");
+                st.executeUpdate("ALTER TABLE " + BACKUP + "_tmp RENAME TO " + BACKUP);
+                System.out.println("🗄 原本的心情與天氣已備份到 " + BACKUP);
+            }
+            for (String column : new String[]{"mood_code", "weather_code"}) {
+                if (!types.containsKey(column)) {
+                    st.executeUpdate("ALTER TABLE diary ADD COLUMN " + column + " TINYINT NOT NULL DEFAULT 0");
+                }
+            }
+            if (!hasIndex(conn)) {
+                st.executeUpdate("CREATE INDEX " + INDEX + " ON diary (mood_code, weather_code, diary_date)");
+            }
+        }
+        if (labels) {
+            Map<String, Integer> unknown = backfill(conn);
+            report(unknown);
+            System.out.println("✅ 已轉換為代碼，文字欄位仍保留；確認無誤後可用 --drop-legacy 刪除");
+        }
+    }
+
+    /** 全部的文字都轉換好、也有備份時才刪掉文字欄位，否則只列出原因。 */
+    static void dropLegacy(Connection conn) throws SQLException {
+        Map<String, String> types = columnTypes(conn);
+        if (!types.containsKey("mood_code") || !types.containsKey("weather_code")) {
+            System.out.println("⚠️ 還沒有 code 欄位，請先執行不帶參數的 MoodCodeMigration");
+            return;
+        }
+        if (isText(types.get("mood")) && isText(types.get("weather"))) {
+            Map<String, Integer> unknown = backfill(conn);
+            if (!unknown.isEmpty()) {
+                report(unknown);
+                System.out.println("⚠️ 還有認不得的值，文字欄位沒有刪除；請先修正上面的資料");
+                return;
+            }
+            if (!hasTable(conn, BACKUP)) {
+                System.out.println("⚠️ 找不到備份表 " + BACKUP + "，文字欄位沒有刪除；請先執行不帶參數的 MoodCodeMigration");
+                return;
+            }
+        }
+        try (Statement st = conn.createStatement()) {
+            for (String column : new String[]{"mood", "weather"}) {
+                if (isText(types.get(column))) {
+                    st.executeUpdate("ALTER TABLE diary DROP COLUMN " + column);
+                    System.out.println("🗄 已刪除 diary." + column + "（備份在 " + BACKUP + "）");
+                }
+            }
+        }
+    }
+
+    /**
+     * 文字欄位有值、code 還是 0 的列依 fromLabel 補上 code（只改資料，不改結構）。
+     * 回傳認不得的值與篇數，這些列維持原狀。
+     */
+    static Map<String, Integer> backfill(Connection conn) throws SQLException {
+        Map<String, Integer> unknown = new LinkedHashMap<>();
+        backfill(conn, "mood", "心情", t -> Mood.fromLabel(t).code(), unknown);
+        backfill(conn, "weather", "天氣", t -> Weather.fromLabel(t).code(), unknown);
+        return unknown;
+    }
+
+    private static void backfill(Connection conn, String column, String name, ToIntFunction<String> codeOf,
+                                 Map<String, Integer> unknown) throws SQLException {
+        String pending = column + "_code = 0 AND " + column + " IS NOT NULL AND " + column + " <> ''";
+        String select = "SELECT " + column + ", COUNT(*) FROM diary WHERE " + pending + " GROUP BY " + column;
+        String update = "UPDATE diary SET " + column + "_code = ? WHERE " + column + "_code = 0 AND " + column + " = ?";
+        // 一種寫法一個 UPDATE，不同的寫法通常只有十幾種
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(select);
+             PreparedStatement ps = conn.prepareStatement(update)) {
+            int batched = 0;
+            while (rs.next()) {
+                String text = rs.getString(1);
+                int code = codeOf.applyAsInt(text);
+                if (code == 0) {
+                    unknown.put(name + "「" + text + "」", rs.getInt(2));
+                    continue;
+                }
+                ps.setByte(1, (byte) code);
+                ps.setString(2, text);
+                ps.addBatch();
+                batched++;
+            }
+            if (batched > 0) ps.executeBatch();
+        }
+    }
+
+    private static void report(Map<String, Integer> unknown) {
+        for (Map.Entry<String, Integer> e : unknown.entrySet()) {
+            System.out.println("⚠️ 不認得的" + e.getKey() + "：" + e.getValue() + " 篇，code 保持 0，原文字仍保留");
+        }
+    }
+
+    private static Map<String, String> columnTypes(Connection conn) throws SQLException {
+        Map<String, String> columns = new HashMap<>();
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, "diary", null)) {
+            while (rs.next()) {
+                columns.put(rs.getString("COLUMN_NAME").toLowerCase(), rs.getString("TYPE_NAME").toLowerCase());
+            }
+        }
+        return columns;
+    }
+
+    private static boolean hasTable(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    private static boolean hasIndex(Connection conn) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(conn.getCatalog(), null, "diary", false, true)) {
+            while (rs.next()) {
+                if (INDEX.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isText(String type) {
+        return type != null && (type.contains("char") || type.contains("text"));
+    }
+}
@@ -0,0 +1,237 @@
+package FinalProject.export;
+
+import FinalProject.dao.DiaryDAO;
+import FinalProject.image.ImageService;
+import FinalProject.metrics.Metrics;
+import FinalProject.model.Diary;
+import FinalProject.model.DiarySummary;
+import FinalProject.model.Mood;
+import FinalProject.model.MoodPalette;
+import FinalProject.model.Weather;
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.*;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * 把日記匯出成 PDF，可以只匯出一天，也可以匯出一段期間（每篇日記從新的一頁開始）。
+ * <p>
+ * 期間匯出時先分頁讀取日期清單，再以 {@link #CHUNK} 篇為一批在背景準備：每批的日記以一次查詢讀取，
+ * 圖片則平行縮小。前一批寫入文件的同時下一批已經在準備，記憶體中最多只有兩批日記。
+ * 中文字型整個程式只載入一次，嵌入時只保留用到的字（subset）；
+ * 圖片先轉成縮圖再嵌入，不會把手機原圖整張放進 PDF。
+ */
+public class PdfExporter {
+    private static final String FONT = "NotoSansCJKtc-Regular.otf";
+    private static final int CHUNK = 16;
+    private static final int PAGE_SIZE = 200;
+    // 圖片在 PDF 中最大 300x200 pt，縮圖取兩倍像素，列印仍然清楚
+    private static final int IMAGE_WIDTH = 300;
+    private static final int IMAGE_HEIGHT = 200;
+
+    private static final ExecutorService WORKERS = Executors.newVirtualThreadPerTaskExecutor();
+    private static BaseFont font;
+
+    /** 一篇已經排好版、可以直接加進文件的日記。 */
+    private record Rendered(BaseColor background, Paragraph text, Image image) {}
+
+    /** 在背景先解析中文字型，第一次匯出時就不必等。 */
+    public static void preloadFont() {
+        WORKERS.execute(() -> {
+            try {
+                font();
+            } catch (IOException | DocumentException e) {
+                System.err.println("⚠️ 無法預先載入字型 " + FONT + "：" + e.getMessage());
+            }
+        });
+    }
+
+    /** 匯出單篇日記（通常是畫面上尚未儲存的內容）。 */
+    public static CompletableFuture<Void> exportDiary(Diary diary, File out) {
+        return CompletableFuture.runAsync(() -> {
+            long t = System.nanoTime();
+            write(List.of(diary.getDate()), dates -> Map.of(diary.getDate(), diary), out);
+            Metrics.time(Metrics.PDF_EXPORT, "single", t);
+        }, WORKERS);
+    }
+
+    /**
+     * 匯出 from 到 to（含）之間的所有日記，依日期由舊到新排列。
+     * from / to 為 null 時表示不設下限 / 上限。完成時回傳匯出的篇數。
+     */
+    public static CompletableFuture<Integer> exportRange(LocalDate from, LocalDate to, File out) {
+        return CompletableFuture.supplyAsync(() -> {
+            long t = System.nanoTime();
+            List<String> dates = datesBetween(from, to);
+            int written = write(dates, DiaryDAO::loadDiaries, out);
+            Metrics.time(Metrics.PDF_EXPORT, "range", t);
+            return written;
+        }, WORKERS);
+    }
+
+    // 與畫面共用 MoodPalette 的顏色，每種組合只建立一次 BaseColor
+    private static final BaseColor[][] PAGE_COLORS = new BaseColor[Mood.values().length][Weather.values().length];
+
+    static {
+        for (Mood m : Mood.values()) {
+            for (Weather w : Weather.values()) {
+                PAGE_COLORS[m.ordinal()][w.ordinal()] = new BaseColor(MoodPalette.rgb(m, w));
+            }
+        }
+    }
+
+    /** PDF 頁面的背景色，依心情與天氣決定。 */
+    static BaseColor pageColor(Mood mood, Weather weather) {
+        return PAGE_COLORS[mood.ordinal()][weather.ordinal()];
+    }
+
+    // 分頁讀取摘要，只保留日期字串
+    private static List<String> datesBetween(LocalDate from, LocalDate to) {
+        List<String> dates = new ArrayList<>();
+        String lower = from == null ? null : from.toString();
+        String before = to == null ? null : to.plusDays(1).toString();
+        while (true) {
+            List<DiarySummary> page = DiaryDAO.getDiariesBefore(before, PAGE_SIZE);
+            for (DiarySummary s : page) {
+                if (lower != null && s.getDate().compareTo(lower) < 0) {
+                    Collections.reverse(dates);
+                    return dates;
+                }
+                dates.add(s.getDate());
+            }
+            if (page.size() < PAGE_SIZE) break;
+            before = page.get(page.size() - 1).getDate();
+        }
+        Collections.reverse(dates);
+        return dates;
+    }
+
+    private static int write(List<String> dates, Function<List<String>, Map<String, Diary>> loader, File out) {
+        boolean done = false;
+        try {
+            BaseFont bf = font();
+            Document doc = new Document(PageSize.A4,40,40,60,60);
+            int written = 0;
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(out), 64 * 1024)) {
+                PdfWriter writer = PdfWriter.getInstance(doc, os);
+                Background bg = new Background();
+                writer.setPageEvent(bg);
+                doc.open();
+
+                // Title
+                Font h1 = new Font(bf,20,Font.BOLD,BaseColor.DARK_GRAY);
+                Paragraph t = new Paragraph("📔 我的日記本",h1);
+                t.setAlignment(Element.ALIGN_CENTER);
+                doc.add(t);
+                doc.add(Chunk.NEWLINE);
+
+                List<CompletableFuture<Rendered>> next = renderChunk(dates, 0, loader, bf);
+                for (int i = 0; i < dates.size(); i += CHUNK) {
+                    List<CompletableFuture<Rendered>> current = next;
+                    next = renderChunk(dates, i + CHUNK, loader, bf);
+                    for (CompletableFuture<Rendered> f : current) {
+                        Rendered r = f.join();
+                        if (r == null) continue;
+                        // 換頁時前一頁以前一篇的顏色上底色
+                        if (written > 0) doc.newPage();
+                        bg.color = r.background();
+                        doc.add(r.text());
+                        if (r.image() != null) doc.add(r.image());
+                        written++;
+                    }
+                }
+                if (written == 0) doc.add(new Paragraph("（這段期間沒有日記）", new Font(bf, 14)));
+                doc.close();
+            }
+            done = true;
+            Metrics.count(Metrics.PDF_ENTRIES, null, written);
+            return written;
+        } catch (IOException | DocumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } finally {
+            // 失敗時不留下寫到一半的檔案
+            if (!done) out.delete();
+        }
+    }
+
+    private static List<CompletableFuture<Rendered>> renderChunk(List<String> dates, int from,
+                                                               Function<List<String>, Map<String, Diary>> loader,
+                                                               BaseFont bf) {
+        List<String> part = dates.subList(Math.min(from, dates.size()), Math.min(dates.size(), from + CHUNK));
+        if (part.isEmpty()) return List.of();
+        // 整批一次查詢（一個連線、一趟來回），排版與縮圖再分開平行進行
+        CompletableFuture<Map<String, Diary>> loaded = CompletableFuture.supplyAsync(() -> loader.apply(part), WORKERS);
+        List<CompletableFuture<Rendered>> chunk = new ArrayList<>(part.size());
+        for (String date : part) {
+            chunk.add(loaded.thenApplyAsync(diaries -> render(diaries.get(date), bf), WORKERS));
+        }
+        return chunk;
+    }
+
+    private static Rendered render(Diary d, BaseFont bf) {
+        if (d == null) return null;
+        Font f = new Font(bf,14,Font.NORMAL,BaseColor.BLACK);
+        Paragraph p = new Paragraph(
+            "📅 日期： "+d.getDate()+"\n"+
+            "😊 心情： "+(d.getMood().label()==null?"(未選)":d.getMood().label())+"\n"+
+            "🌦 天氣： "+(d.getWeather().label()==null?"(未選)":d.getWeather().label())+"\n\n"+
+            (d.getContent()==null?"":d.getContent()), f
+        );
+        p.setAlignment(Element.ALIGN_LEFT);
+        return new Rendered(pageColor(d.getMood(), d.getWeather()), p, image(d.getImagePath()));
+    }
+
+    private static Image image(String path) {
+        if (path == null) return null;
+        File src = new File(path);
+        if (!src.exists()) return null;
+        try {
+            File thumb = ImageService.thumbnailFile(src, IMAGE_WIDTH * 2, IMAGE_HEIGHT * 2);
+            Image img = Image.getInstance(thumb.getAbsolutePath());
+            img.scaleToFit(IMAGE_WIDTH, IMAGE_HEIGHT);
+            img.setAlignment(Element.ALIGN_CENTER);
+            return img;
+        } catch (IOException | BadElementException e) {
+            System.err.println("⚠️ 無法匯出圖片 " + path + "：" + e.getMessage());
+            return null;
+        }
+    }
+
+    // 字型檔有好幾 MB，解析一次後重複使用
+    private static synchronized BaseFont font() throws IOException, DocumentException {
+        if (font == null) {
+            font = BaseFont.createFont(FONT, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
+        }
+        return font;
+    }
+
+    /** 每頁結束時以目前這篇日記的顏色填滿背景。 */
+    private static final class Background extends PdfPageEventHelper {
+        BaseColor color = BaseColor.WHITE;
+
+        @Override
+        public void onEndPage(PdfWriter w, Document d) {
+            PdfContentByte cb = w.getDirectContentUnder();
+            Rectangle r = d.getPageSize();
+            cb.saveState();
+            cb.setColorFill(color);
+            cb.rectangle(0,0,r.getWidth(),r.getHeight());
+            cb.fill();
+            cb.restoreState();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package FinalProject.image;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import javafx.scene.image.Image;
+
+/**
+ * 日記圖片的縮圖與快取。
+ * <p>
+ * 第一次顯示某張圖片時，在背景以 ImageIO 抽樣解碼原圖並縮成需要的大小，
+ * 存成 cache/thumbs 下的 JPEG（以路徑、修改時間與尺寸為 key），之後只讀縮圖。
+ * 已解碼的縮圖以 LRU 保存在記憶體中，總大小不超過 {@link #MAX_BYTES}。
+ * ImageIO 不支援的格式改由 JavaFX 直接以指定大小載入原圖，不寫入磁碟。
+ */
+public class ImageService {
+    private static final Path THUMB_DIR = Path.of("cache", "thumbs");
+    private static final long MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final ExecutorService DECODE = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Map<String, CompletableFuture<Image>> loading = new ConcurrentHashMap<>();
+    private static final LinkedHashMap<String, Image> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private static long bytes;
+
+    /** 取得最大 width x height（保持比例）的圖片，完成前不會佔用 JavaFX 執行緒。 */
+    public static CompletableFuture<Image> load(File original, int width, int height) {
+        String key = key(original, width, height);
+        synchronized (memory) {
+            Image cached = memory.get(key);
+            if (cached != null) return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<Image> shared = loading.computeIfAbsent(key, k -> {
+            CompletableFuture<Image> f = CompletableFuture.supplyAsync(() -> decode(original, width, height, k), DECODE);
+            f.whenComplete((img, ex) -> loading.remove(k, f));
+            return f;
+        });
+        return shared.copy();
+    }
+
+    /**
+     * 取得縮圖檔，沒有就產生一個。原圖格式不支援時回傳原圖路徑。
+     * 會在呼叫的執行緒上做 I/O，請勿在 JavaFX 執行緒呼叫。
+     */
+    public static File thumbnailFile(File original, int width, int height) throws IOException {
+        Path thumb = THUMB_DIR.resolve(key(original, width, height) + ".jpg");
+        if (Files.exists(thumb)) return thumb.toFile();
+
+        BufferedImage scaled = readScaled(original, width, height);
+        if (scaled == null) return original;
+        Files.createDirectories(THUMB_DIR);
+        // 先寫暫存檔再改名，避免留下寫到一半的縮圖
+        Path tmp = Files.createTempFile(THUMB_DIR, "thumb", ".tmp");
+        ImageIO.write(scaled, "jpg", tmp.toFile());
+        Files.move(tmp, thumb, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return thumb.toFile();
+    }
+
+    private static Image decode(File original, int width, int height, String key) {
+        Image img;
+        try {
+            File f = thumbnailFile(original, width, height);
+            img = new Image(f.toURI().toString(), width, height, true, true);
+        } catch (IOException e) {
+            System.err.println("⚠️ 無法產生縮圖：" + e.getMessage());
+            img = new Image(original.toURI().toString(), width, height, true, true);
+        }
+        if (!img.isError()) remember(key, img);
+        return img;
+    }
+
+    private static void remember(String key, Image img) {
+        synchronized (memory) {
+            Image old = memory.put(key, img);
+            if (old != null) bytes -= sizeOf(old);
+            bytes += sizeOf(img);
+            Iterator<Image> it = memory.values().iterator();
+            while (bytes > MAX_BYTES && it.hasNext()) {
+                Image eldest = it.next();
+                if (eldest == img) break;
+                it.remove();
+                bytes -= sizeOf(eldest);
+            }
+        }
+    }
+
+    // 以 subsampling 解碼，只讀需要的像素，手機照片不會整張放進記憶體
+    private static BufferedImage readScaled(File original, int width, int height) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original)) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int w = reader.getWidth(0), h = reader.getHeight(0);
+                int step = Math.max(1, Math.min(w / width, h / height));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage src = reader.read(0, param);
+
+                double scale = Math.min(1.0, Math.min((double) width / src.getWidth(), (double) height / src.getHeight()));
+                int tw = Math.max(1, (int) Math.round(src.getWidth() * scale));
+                int th = Math.max(1, (int) Math.round(src.getHeight() * scale));
+                BufferedImage out = new BufferedImage(tw, th, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = out.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(src, 0, 0, tw, th, null);
+                g.dispose();
+                return out;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static String key(File f, int width, int height) {
+        String raw = f.getAbsolutePath() + "|" + f.lastModified() + "|" + width + "x" + height;
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(raw.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(raw.hashCode());
+        }
+    }
+
+    private static long sizeOf(Image img) {
+        return (long) img.getWidth() * (long) img.getHeight() * 4;
+    }
+}
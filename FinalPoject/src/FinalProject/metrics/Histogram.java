@@ -0,0 +1,91 @@
+package FinalProject.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定區間的延遲直方圖，區間與 Prometheus histogram 的 le 相同。
+ * 記錄只做幾次 LongAdder 累加，不加鎖，放在熱路徑上也不影響效能；
+ * 百分位數以區間內線性內插估計。
+ */
+public class Histogram {
+    /** 各區間的上限（秒），最後一個區間是 +Inf。 */
+    static final double[] BOUNDS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private final String name;
+    private final String label;
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    Histogram(String name, String label) {
+        this.name = name;
+        this.label = label;
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        double seconds = nanos / 1e9;
+        int i = 0;
+        while (i < BOUNDS.length && seconds > BOUNDS[i]) i++;
+        buckets[i].increment();
+        count.increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** 標籤值（例如 DAO 的方法名稱），沒有標籤時為 null。 */
+    public String getLabel() {
+        return label;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    public double getMaxSeconds() {
+        return maxNanos.get() / 1e9;
+    }
+
+    public double getMeanSeconds() {
+        long n = count.sum();
+        return n == 0 ? 0 : getSumSeconds() / n;
+    }
+
+    /** 估計第 q（0～1）百分位的秒數。 */
+    public double percentile(double q) {
+        long[] counts = bucketCounts();
+        long total = 0;
+        for (long c : counts) total += c;
+        if (total == 0) return 0;
+        double rank = q * total;
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue;
+            if (seen + counts[i] >= rank) {
+                double lower = i == 0 ? 0 : BOUNDS[i - 1];
+                double upper = i < BOUNDS.length ? BOUNDS[i] : Math.max(lower, getMaxSeconds());
+                return Math.min(getMaxSeconds(), lower + (upper - lower) * (rank - seen) / counts[i]);
+            }
+            seen += counts[i];
+        }
+        return getMaxSeconds();
+    }
+
+    long[] bucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) counts[i] = buckets[i].sum();
+        return counts;
+    }
+}
@@ -0,0 +1,170 @@
+package FinalProject.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 程式內的效能指標：各熱路徑的耗時直方圖、錯誤次數，以及連線池、快取等狀態。
+ * <p>
+ * 用法：
+ * <pre>
+ *   long t = System.nanoTime();
+ *   try { ... } finally { Metrics.time(Metrics.DAO, "loadDiary", t); }
+ * </pre>
+ * {@link #scrape()} 輸出 Prometheus text format，由 {@link MetricsExporter} 定期寫成檔案，
+ * 診斷視窗則直接讀 {@link #histograms()}。
+ */
+public class Metrics {
+    public static final String DAO = "diary_dao_seconds";
+    public static final String CONNECTION = "diary_db_connection_acquire_seconds";
+    public static final String FILE_WRITE = "diary_file_write_seconds";
+    public static final String PDF_EXPORT = "diary_pdf_export_seconds";
+    public static final String VIEW = "diary_view_build_seconds";
+
+    public static final String DB_ERRORS = "diary_db_errors_total";
+    public static final String CONNECTION_ERRORS = "diary_db_connection_errors_total";
+    public static final String PDF_ENTRIES = "diary_pdf_exported_entries_total";
+
+    /** 名稱 → {說明, 標籤名稱}。 */
+    private static final Map<String, String[]> FAMILIES = Map.of(
+        DAO, new String[]{"DiaryDAO 各方法的耗時", "op"},
+        CONNECTION, new String[]{"從連線池取得連線的等待時間", null},
+        FILE_WRITE, new String[]{"儲存日記時本機檔案的寫入耗時", "file"},
+        PDF_EXPORT, new String[]{"匯出 PDF 的耗時", "kind"},
+        VIEW, new String[]{"畫面從開始建立到顯示資料的耗時", "view"},
+        DB_ERRORS, new String[]{"資料庫操作失敗次數", "op"},
+        CONNECTION_ERRORS, new String[]{"無法取得資料庫連線的次數", null},
+        PDF_ENTRIES, new String[]{"匯出到 PDF 的日記篇數", null}
+    );
+
+    private record Gauge(String help, DoubleSupplier value) {}
+
+    // 名稱 → 標籤值（沒有標籤為 ""）→ 指標；查詢時不必組字串，熱路徑上不會配置記憶體
+    private static final Map<String, Map<String, Histogram>> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, LongAdder>> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    /** 記錄從 startNanos（System.nanoTime()）到現在的耗時。label 為 null 表示沒有標籤。 */
+    public static void time(String name, String label, long startNanos) {
+        histogram(name, label).record(System.nanoTime() - startNanos);
+    }
+
+    public static Histogram histogram(String name, String label) {
+        return histograms.computeIfAbsent(name, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(label == null ? "" : label, k -> new Histogram(name, label));
+    }
+
+    public static void count(String name, String label) {
+        count(name, label, 1);
+    }
+
+    public static void count(String name, String label, long n) {
+        counters.computeIfAbsent(name, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(label == null ? "" : label, k -> new LongAdder()).add(n);
+    }
+
+    /** 註冊一個讀取當下數值的 gauge（例如連線池使用中的連線數）。 */
+    public static void gauge(String name, String help, DoubleSupplier value) {
+        gauges.put(name, new Gauge(help, value));
+    }
+
+    /** 目前所有的直方圖，依名稱與標籤排序。 */
+    public static List<Histogram> histograms() {
+        List<Histogram> list = new ArrayList<>();
+        for (Map<String, Histogram> byLabel : histograms.values()) list.addAll(byLabel.values());
+        list.sort(Comparator.comparing(Histogram::getName)
+            .thenComparing(h -> h.getLabel() == null ? "" : h.getLabel()));
+        return list;
+    }
+
+    /** 目前所有計數器，key 為 name{label="..."}。 */
+    public static Map<String, Long> counters() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        counters.keySet().stream().sorted().forEach(name -> {
+            Map<String, LongAdder> byLabel = counters.get(name);
+            byLabel.keySet().stream().sorted().forEach(label ->
+                map.put(key(name, label.isEmpty() ? null : label), byLabel.get(label).sum()));
+        });
+        return map;
+    }
+
+    /** Prometheus text exposition format（0.0.4）。 */
+    public static String scrape() {
+        StringBuilder sb = new StringBuilder();
+        String family = null;
+        for (Histogram h : histograms()) {
+            if (!h.getName().equals(family)) {
+                family = h.getName();
+                header(sb, family, help(family), "histogram");
+            }
+            String labels = labels(h.getName(), h.getLabel());
+            long[] buckets = h.bucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i];
+                String le = i < Histogram.BOUNDS.length ? number(Histogram.BOUNDS[i]) : "+Inf";
+                sb.append(family).append("_bucket{").append(labels.isEmpty() ? "" : labels + ",")
+                    .append("le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+            }
+            String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+            sb.append(family).append("_sum").append(braces).append(' ').append(number(h.getSumSeconds())).append('\n');
+            sb.append(family).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+        }
+
+        family = null;
+        for (Map.Entry<String, Long> e : counters().entrySet()) {
+            String name = e.getKey().contains("{") ? e.getKey().substring(0, e.getKey().indexOf('{')) : e.getKey();
+            if (!name.equals(family)) {
+                family = name;
+                header(sb, family, help(family), "counter");
+            }
+            sb.append(e.getKey()).append(' ').append(e.getValue()).append('\n');
+        }
+
+        gauges.keySet().stream().sorted().forEach(name -> {
+            Gauge g = gauges.get(name);
+            header(sb, name, g.help(), "gauge");
+            double v;
+            try {
+                v = g.value().getAsDouble();
+            } catch (RuntimeException ex) {
+                v = Double.NaN;
+            }
+            sb.append(name).append(' ').append(number(v)).append('\n');
+        });
+        return sb.toString();
+    }
+
+    private static String key(String name, String label) {
+        String labels = labels(name, label);
+        return labels.isEmpty() ? name : name + "{" + labels + "}";
+    }
+
+    private static String labels(String name, String label) {
+        String[] family = FAMILIES.get(name);
+        if (label == null || family == null || family[1] == null) return "";
+        return family[1] + "=\"" + label.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static String help(String name) {
+        String[] family = FAMILIES.get(name);
+        return family == null ? name : family[0];
+    }
+
+    private static void header(StringBuilder sb, String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String number(double v) {
+        if (Double.isNaN(v)) return "NaN";
+        if (v == Math.rint(v) && Math.abs(v) < 1e15) return String.valueOf((long) v);
+        return Double.toString(v);
+    }
+}
@@ -0,0 +1,49 @@
+package FinalProject.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定期把 {@link Metrics#scrape()} 寫到本機檔案（預設 metrics/diary.prom），
+ * 可以直接給 node_exporter 的 textfile collector 讀。先寫暫存檔再改名，不會讀到寫一半的內容。
+ */
+public class MetricsExporter {
+    private static ScheduledExecutorService timer;
+    private static Path file;
+
+    public static synchronized void start(Path target, long intervalSeconds) {
+        if (timer != null) return;
+        file = target;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-exporter");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(MetricsExporter::write, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /** 停止定期輸出，並寫出最後一次的結果。 */
+    public static synchronized void stop() {
+        if (timer == null) return;
+        timer.shutdownNow();
+        timer = null;
+        write();
+    }
+
+    private static void write() {
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, Metrics.scrape(), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("⚠️ 無法輸出效能指標：" + e.getMessage());
+        }
+    }
+}
@@ -2,15 +2,16 @@ package FinalProject.model;
 
 public class Diary {
     private String date;
-    private String mood;
-    private String weather;
+    // 心情與天氣只存 code，文字與顏色查 Mood / Weather / MoodPalette
+    private byte mood;
+    private byte weather;
     private String content;
     private String imagePath;
 
-    public Diary(String date, String mood, String weather, String content, String imagePath) {
+    public Diary(String date, Mood mood, Weather weather, String content, String imagePath) {
         this.date = date;
-        this.mood = mood;
-        this.weather = weather;
+        this.mood = mood.code();
+        this.weather = weather.code();
         this.content = content;
         this.imagePath = imagePath;
     }
@@ -20,12 +21,12 @@ public class Diary {
         return date;
     }
 
-    public String getMood() {
-        return mood;
+    public Mood getMood() {
+        return Mood.of(mood);
     }
 
-    public String getWeather() {
-        return weather;
+    public Weather getWeather() {
+        return Weather.of(weather);
     }
 
     public String getContent() {
@@ -41,12 +42,12 @@ public class Diary {
         this.date = date;
     }
 
-    public void setMood(String mood) {
-        this.mood = mood;
+    public void setMood(Mood mood) {
+        this.mood = mood.code();
     }
 
-    public void setWeather(String weather) {
-        this.weather = weather;
+    public void setWeather(Weather weather) {
+        this.weather = weather.code();
     }
 
     public void setContent(String content) {
@@ -59,6 +60,6 @@ public class Diary {
 
     @Override
     public String toString() {
-        return date + " - " + mood + " - " + weather;
+        return date + " - " + getMood().label() + " - " + getWeather().label();
     }
 }
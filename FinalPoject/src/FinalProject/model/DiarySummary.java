@@ -0,0 +1,60 @@
+package FinalProject.model;
+
+import java.util.Objects;
+
+/** 列表用的精簡日記資料，不含內容與圖片路徑。 */
+public class DiarySummary {
+    private final String date;
+    private final byte mood;
+    private final byte weather;
+    private final boolean hasImage;
+
+    public DiarySummary(String date, Mood mood, Weather weather, boolean hasImage) {
+        this.date = date;
+        this.mood = mood.code();
+        this.weather = weather.code();
+        this.hasImage = hasImage;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public Mood getMood() {
+        return Mood.of(mood);
+    }
+
+    public Weather getWeather() {
+        return Weather.of(weather);
+    }
+
+    public boolean hasImage() {
+        return hasImage;
+    }
+
+    /** 心情、天氣是否在遮罩內（bit = 1 << code）；遮罩為 0 表示不篩選。 */
+    public boolean matches(int moodMask, int weatherMask) {
+        return (moodMask == 0 || (moodMask >>> mood & 1) != 0)
+            && (weatherMask == 0 || (weatherMask >>> weather & 1) != 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DiarySummary other)) return false;
+        return hasImage == other.hasImage
+            && mood == other.mood
+            && weather == other.weather
+            && Objects.equals(date, other.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, mood, weather, hasImage);
+    }
+
+    @Override
+    public String toString() {
+        return date + " - " + getMood().label() + " - " + getWeather().label();
+    }
+}
@@ -0,0 +1,85 @@
+package FinalProject.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 心情。資料庫與記憶體只存 {@link #code()}（1 個位元組），畫面上的文字由這張表查出，顏色見 {@link MoodPalette}。
+ * <p>
+ * code 就是宣告順序並且已經存進資料庫，只能在最後面新增，不能調整順序或刪除。
+ */
+public enum Mood {
+    UNSET(null),
+    GREAT("😊 很棒"),
+    OK("🙂 普通"),
+    SUPER("😀 超好"),
+    SAD("😕 難過"),
+    EXPLODED("🤯 爆炸了");
+
+    private static final Mood[] BY_CODE = values();
+
+    /** 可以選的心情（不含 UNSET），依畫面上的順序。 */
+    public static final List<Mood> CHOICES = List.of(Arrays.copyOfRange(BY_CODE, 1, BY_CODE.length));
+
+    // 舊版用過、現在選單上沒有的寫法，對到最接近的心情
+    private static final Map<String, Mood> LEGACY = Map.of(
+        "還行", OK,
+        "還好", OK,
+        "😐", OK,
+        "😄", SUPER,
+        "🙁", SAD,
+        "糟透了", SAD,
+        "😭", SAD
+    );
+
+    private final String label;
+
+    Mood(String label) {
+        this.label = label;
+    }
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    /** 畫面上的文字，UNSET 為 null。 */
+    public String label() {
+        return label;
+    }
+
+    /** 篩選用的遮罩位元，多個心情以 | 組合。 */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /** 不認得的 code（例如較新版本寫入的）視為 UNSET。 */
+    public static Mood of(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : UNSET;
+    }
+
+    /**
+     * 由文字找回心情：完整的標籤（「😊 很棒」）、只有文字或只有表情符號都可以，
+     * 也認得舊版選單與文字檔用過的寫法（「🙂 還行」、「😭 糟透了」）。空白或不認得時回傳 UNSET。
+     */
+    public static Mood fromLabel(String text) {
+        if (text == null || text.isBlank()) return UNSET;
+        // 表情符號後面的 U+FE0F 有時有、有時沒有，比對時一律去掉
+        String t = text.strip().replace("\uFE0F", "");
+        int space = t.indexOf(' ');
+        String emoji = space < 0 ? t : t.substring(0, space);
+        String word = t.substring(space + 1);
+        // 文字優先，表情符號和文字對不上時以文字為準
+        for (int i = 1; i < BY_CODE.length; i++) {
+            String label = BY_CODE[i].label;
+            if (label.substring(label.indexOf(' ') + 1).equals(word)) return BY_CODE[i];
+        }
+        for (int i = 1; i < BY_CODE.length; i++) {
+            String label = BY_CODE[i].label.replace("\uFE0F", "");
+            if (label.substring(0, label.indexOf(' ')).equals(emoji)) return BY_CODE[i];
+        }
+        Mood legacy = LEGACY.get(word);
+        if (legacy == null) legacy = LEGACY.get(emoji);
+        return legacy == null ? UNSET : legacy;
+    }
+}
@@ -0,0 +1,45 @@
+package FinalProject.model;
+
+import java.util.Arrays;
+
+/**
+ * 依心情與天氣決定的背景色，日記頁、日曆與 PDF 共用同一張表。
+ * 以 [心情 code][天氣 code] 直接查表，畫面更新時不必比對字串。
+ */
+public final class MoodPalette {
+    private static final int WHITE = 0xFFFFFF;
+    private static final int[][] RGB = new int[Mood.values().length][Weather.values().length];
+    private static final String[][] HEX = new String[RGB.length][RGB[0].length];
+
+    static {
+        for (int[] row : RGB) Arrays.fill(row, WHITE);
+        fill(Mood.SUPER, 0xE0F7FA);
+        fill(Mood.SAD, 0xF3E5F5);
+        fill(Mood.EXPLODED, 0xF8D7DA);
+        // 特定組合優先於只看心情的顏色
+        RGB[Mood.GREAT.ordinal()][Weather.SUNNY.ordinal()] = 0xFFFDE7;
+        RGB[Mood.OK.ordinal()][Weather.CLOUDY.ordinal()] = 0xE8F0FE;
+        for (int m = 0; m < RGB.length; m++) {
+            for (int w = 0; w < RGB[m].length; w++) {
+                HEX[m][w] = String.format("#%06X", RGB[m][w]);
+            }
+        }
+    }
+
+    private MoodPalette() {
+    }
+
+    private static void fill(Mood mood, int rgb) {
+        Arrays.fill(RGB[mood.ordinal()], rgb);
+    }
+
+    /** 0xRRGGBB */
+    public static int rgb(Mood mood, Weather weather) {
+        return RGB[mood.ordinal()][weather.ordinal()];
+    }
+
+    /** CSS 用的 #RRGGBB */
+    public static String hex(Mood mood, Weather weather) {
+        return HEX[mood.ordinal()][weather.ordinal()];
+    }
+}
@@ -0,0 +1,81 @@
+package FinalProject.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 天氣。資料庫與記憶體只存 {@link #code()}（1 個位元組），畫面上的文字由這張表查出。
+ * <p>
+ * code 就是宣告順序並且已經存進資料庫，只能在最後面新增，不能調整順序或刪除。
+ */
+public enum Weather {
+    UNSET(null),
+    SUNNY("☀️ 晴朗"),
+    CLOUDY("⛅ 多雲"),
+    RAINY("🌧 下雨"),
+    STORMY("⛈ 雷雨"),
+    SNOWY("❄️ 下雪");
+
+    private static final Weather[] BY_CODE = values();
+
+    /** 可以選的天氣（不含 UNSET），依畫面上的順序。 */
+    public static final List<Weather> CHOICES = List.of(Arrays.copyOfRange(BY_CODE, 1, BY_CODE.length));
+
+    // 舊版用過、現在選單上沒有的寫法，對到最接近的天氣
+    private static final Map<String, Weather> LEGACY = Map.of(
+        "晴天", SUNNY,
+        "🌞", SUNNY,
+        "🌤", CLOUDY
+    );
+
+    private final String label;
+
+    Weather(String label) {
+        this.label = label;
+    }
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    /** 畫面上的文字，UNSET 為 null。 */
+    public String label() {
+        return label;
+    }
+
+    /** 篩選用的遮罩位元，多個天氣以 | 組合。 */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /** 不認得的 code（例如較新版本寫入的）視為 UNSET。 */
+    public static Weather of(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : UNSET;
+    }
+
+    /**
+     * 由文字找回天氣：完整的標籤（「☀️ 晴朗」）、只有文字或只有表情符號都可以，
+     * 也認得舊版選單與文字檔用過的寫法（「🌞 晴天」、「🌤」）。空白或不認得時回傳 UNSET。
+     */
+    public static Weather fromLabel(String text) {
+        if (text == null || text.isBlank()) return UNSET;
+        // 表情符號後面的 U+FE0F 有時有、有時沒有，比對時一律去掉
+        String t = text.strip().replace("\uFE0F", "");
+        int space = t.indexOf(' ');
+        String emoji = space < 0 ? t : t.substring(0, space);
+        String word = t.substring(space + 1);
+        // 文字優先，表情符號和文字對不上時以文字為準
+        for (int i = 1; i < BY_CODE.length; i++) {
+            String label = BY_CODE[i].label;
+            if (label.substring(label.indexOf(' ') + 1).equals(word)) return BY_CODE[i];
+        }
+        for (int i = 1; i < BY_CODE.length; i++) {
+            String label = BY_CODE[i].label.replace("\uFE0F", "");
+            if (label.substring(0, label.indexOf(' ')).equals(emoji)) return BY_CODE[i];
+        }
+        Weather legacy = LEGACY.get(word);
+        if (legacy == null) legacy = LEGACY.get(emoji);
+        return legacy == null ? UNSET : legacy;
+    }
+}
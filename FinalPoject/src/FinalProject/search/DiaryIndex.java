@@ -0,0 +1,296 @@
+package FinalProject.search;
+
+import FinalProject.model.Diary;
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * 日記內容的記憶體內反向索引。
+ * <p>
+ * 中日韓文字以相鄰兩字（bigram）為詞，索引時每段連續中文的最後一個字另外保留單字；
+ * 英數字以整個單字（小寫）為詞。查詢單一中文字時比對以該字開頭的 bigram 與該單字，
+ * 這樣不論字出現在哪個位置都找得到；查詢兩個字以上只用 bigram。
+ * 查詢的每個詞都要出現才算符合，排序使用 BM25。
+ * <p>
+ * 每篇日記對應一個 docId，更新時舊的 docId 標記為刪除並配新的 docId，
+ * 被刪除的 docId 超過三成時重建 posting list 並把 docId 重新編號，陣列大小跟著日記篇數而不是更新次數。
+ * 心情與天氣的 code 存在以 docId 為索引的 byte 陣列，篩選時只要檢查遮罩的 bit，不需要讀資料庫。
+ */
+public class DiaryIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int SNIPPET_RADIUS = 30;
+
+    /** 一個詞出現在哪些 docId，以及各出現幾次。 */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> docOfDate = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private String[] dates = new String[1024];
+    private byte[] moods = new byte[1024];
+    private byte[] weathers = new byte[1024];
+    private int[] lengths = new int[1024];
+    private int nextDoc;
+    private long totalLength;
+
+    public synchronized void update(Diary d) {
+        remove(d.getDate());
+        List<String> tokens = tokenize(d.getContent());
+        int doc = nextDoc++;
+        ensureCapacity(doc + 1);
+        dates[doc] = d.getDate();
+        moods[doc] = d.getMood().code();
+        weathers[doc] = d.getWeather().code();
+        lengths[doc] = tokens.size();
+        totalLength += tokens.size();
+        docOfDate.put(d.getDate(), doc);
+
+        Map<String, Integer> freq = new HashMap<>();
+        for (String t : tokens) freq.merge(t, 1, Integer::sum);
+        for (Map.Entry<String, Integer> e : freq.entrySet()) {
+            terms.computeIfAbsent(e.getKey(), k -> new Postings()).add(doc, e.getValue());
+        }
+    }
+
+    public synchronized void remove(String date) {
+        Integer old = docOfDate.remove(date);
+        if (old == null) return;
+        deleted.set(old);
+        totalLength -= lengths[old];
+        if (deleted.cardinality() > nextDoc * 0.3 && nextDoc > 1000) purge();
+    }
+
+    public synchronized int size() {
+        return docOfDate.size();
+    }
+
+    /**
+     * 依相關程度排序搜尋。moodMask / weatherMask 是 {@link Mood#bit()}、{@link Weather#bit()} 的組合，0 表示不篩選。
+     * 片段文字由 contentsOf 一次讀取回傳的前 limit 筆，結果的 key 為日期。
+     */
+    public List<SearchHit> search(String query, int moodMask, int weatherMask, int limit,
+                                  Function<List<String>, Map<String, String>> contentsOf) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(queryTerms(query)));
+        if (queryTerms.isEmpty()) return List.of();
+
+        record Scored(int doc, double score) {}
+        List<SearchHit> ranked = new ArrayList<>();
+        synchronized (this) {
+            int n = docOfDate.size();
+            double avgLength = n == 0 ? 1 : Math.max(1.0, (double) totalLength / n);
+            // 分數只記有出現的 docId；每個詞處理完只留下到目前為止每個詞都有出現的日記
+            Map<Integer, Double> scores = null;
+            for (String q : queryTerms) {
+                Map<Integer, Double> termScores = new HashMap<>();
+                for (Postings p : postingsFor(q)) {
+                    double idf = Math.log(1 + (n - p.size + 0.5) / (p.size + 0.5));
+                    for (int i = 0; i < p.size; i++) {
+                        int doc = p.docs[i];
+                        if (deleted.get(doc)) continue;
+                        if (scores != null && !scores.containsKey(doc)) continue;
+                        if (moodMask != 0 && (moodMask >>> moods[doc] & 1) == 0) continue;
+                        if (weatherMask != 0 && (weatherMask >>> weathers[doc] & 1) == 0) continue;
+                        double tf = p.freqs[i];
+                        double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[doc] / avgLength));
+                        termScores.merge(doc, idf * norm, Double::sum);
+                    }
+                }
+                if (scores != null) {
+                    for (Map.Entry<Integer, Double> e : termScores.entrySet()) {
+                        e.setValue(e.getValue() + scores.get(e.getKey()));
+                    }
+                }
+                scores = termScores;
+                if (scores.isEmpty()) break;
+            }
+            PriorityQueue<Scored> heap = new PriorityQueue<>((a, b) -> Double.compare(a.score(), b.score()));
+            for (Map.Entry<Integer, Double> e : scores.entrySet()) {
+                heap.offer(new Scored(e.getKey(), e.getValue()));
+                if (heap.size() > limit) heap.poll();
+            }
+            List<Scored> top = new ArrayList<>(heap);
+            top.sort((a, b) -> Double.compare(b.score(), a.score()));
+            for (Scored t : top) {
+                ranked.add(new SearchHit(dates[t.doc()], Mood.of(moods[t.doc()]), Weather.of(weathers[t.doc()]),
+                    t.score(), null));
+            }
+        }
+
+        // 片段需要讀內容，不在鎖內做
+        if (ranked.isEmpty()) return ranked;
+        Map<String, String> contents = contentsOf.apply(ranked.stream().map(SearchHit::date).toList());
+        List<SearchHit> hits = new ArrayList<>(ranked.size());
+        for (SearchHit h : ranked) {
+            hits.add(new SearchHit(h.date(), h.mood(), h.weather(), h.score(),
+                snippet(contents.get(h.date()), queryTerms)));
+        }
+        return hits;
+    }
+
+    /** 把文字切成索引用的詞。 */
+    public static List<String> tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * 把查詢切成詞。和索引不同，兩個字以上的中文只取 bigram，不加最後一個字的單字，
+     * 否則「今天」的「天」會展開成所有「天」開頭的詞，連「明天見」也找得到。
+     */
+    public static List<String> queryTerms(String query) {
+        return tokenize(query, true);
+    }
+
+    // 一段只有一個字的中文在索引與查詢都保留單字；query 時較長的段落不保留最後一個字
+    private static List<String> tokenize(String text, boolean query) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        StringBuilder word = new StringBuilder();
+        int prevCjk = -1;
+        int run = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isCjk(cp)) {
+                flushWord(word, tokens);
+                if (prevCjk >= 0) {
+                    tokens.add(new String(Character.toChars(prevCjk)) + new String(Character.toChars(cp)));
+                }
+                prevCjk = cp;
+                run++;
+            } else {
+                if (prevCjk >= 0 && (!query || run == 1)) tokens.add(new String(Character.toChars(prevCjk)));
+                prevCjk = -1;
+                run = 0;
+                if (Character.isLetterOrDigit(cp)) {
+                    word.appendCodePoint(Character.toLowerCase(cp));
+                } else {
+                    flushWord(word, tokens);
+                }
+            }
+        }
+        if (prevCjk >= 0 && (!query || run == 1)) tokens.add(new String(Character.toChars(prevCjk)));
+        flushWord(word, tokens);
+        return tokens;
+    }
+
+    private List<Postings> postingsFor(String term) {
+        if (term.codePointCount(0, term.length()) == 1 && isCjk(term.codePointAt(0))) {
+            // 單一中文字：所有以它開頭的 bigram 加上單字本身
+            SortedMap<String, Postings> range = terms.subMap(term, term + Character.MAX_VALUE);
+            return new ArrayList<>(range.values());
+        }
+        Postings p = terms.get(term);
+        return p == null ? Collections.emptyList() : List.of(p);
+    }
+
+    private void purge() {
+        Set<String> empty = new HashSet<>();
+        for (Map.Entry<String, Postings> e : terms.entrySet()) {
+            Postings p = e.getValue();
+            int w = 0;
+            for (int r = 0; r < p.size; r++) {
+                if (deleted.get(p.docs[r])) continue;
+                p.docs[w] = p.docs[r];
+                p.freqs[w] = p.freqs[r];
+                w++;
+            }
+            p.size = w;
+            if (w == 0) empty.add(e.getKey());
+        }
+        terms.keySet().removeAll(empty);
+
+        // 留下的 docId 依原本的順序重新編號成 0..live-1，posting 裡的順序不變
+        int[] renumbered = new int[nextDoc];
+        int live = 0;
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (deleted.get(doc)) continue;
+            renumbered[doc] = live;
+            dates[live] = dates[doc];
+            moods[live] = moods[doc];
+            weathers[live] = weathers[doc];
+            lengths[live] = lengths[doc];
+            docOfDate.put(dates[live], live);
+            live++;
+        }
+        for (Postings p : terms.values()) {
+            for (int i = 0; i < p.size; i++) p.docs[i] = renumbered[p.docs[i]];
+        }
+        int cap = Math.max(1024, live * 2);
+        dates = Arrays.copyOf(dates, cap);
+        moods = Arrays.copyOf(moods, cap);
+        weathers = Arrays.copyOf(weathers, cap);
+        lengths = Arrays.copyOf(lengths, cap);
+        Arrays.fill(dates, live, cap, null);
+        nextDoc = live;
+        deleted.clear();
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= dates.length) return;
+        int cap = Math.max(n, dates.length * 2);
+        dates = Arrays.copyOf(dates, cap);
+        moods = Arrays.copyOf(moods, cap);
+        weathers = Arrays.copyOf(weathers, cap);
+        lengths = Arrays.copyOf(lengths, cap);
+    }
+
+    private static String snippet(String content, List<String> queryTerms) {
+        if (content == null || content.isEmpty()) return "";
+        String lower = content.toLowerCase();
+        int at = -1;
+        for (String q : queryTerms) {
+            int i = lower.indexOf(q);
+            if (i >= 0 && (at < 0 || i < at)) at = i;
+        }
+        if (at < 0) at = 0;
+        int from = Math.max(0, at - SNIPPET_RADIUS);
+        int to = Math.min(content.length(), at + SNIPPET_RADIUS);
+        return (from > 0 ? "…" : "") + content.substring(from, to).replace('\n', ' ')
+            + (to < content.length() ? "…" : "");
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript s = Character.UnicodeScript.of(cp);
+        return s == Character.UnicodeScript.HAN
+            || s == Character.UnicodeScript.HIRAGANA
+            || s == Character.UnicodeScript.KATAKANA
+            || s == Character.UnicodeScript.HANGUL;
+    }
+}
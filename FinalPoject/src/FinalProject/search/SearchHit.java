@@ -0,0 +1,13 @@
+package FinalProject.search;
+
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+
+public record SearchHit(
+    String date,
+    Mood mood,
+    Weather weather,
+    double score,
+    String snippet
+) {
+}
@@ -0,0 +1,308 @@
+package FinalProject.service;
+
+import FinalProject.dao.DiaryCache;
+import FinalProject.dao.DiaryDAO;
+import FinalProject.metrics.Metrics;
+import FinalProject.model.Diary;
+import FinalProject.model.DiarySummary;
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+import FinalProject.search.DiaryIndex;
+import FinalProject.search.SearchHit;
+import FinalProject.stats.DiaryStats;
+import FinalProject.stats.StatsSnapshot;
+import FinalProject.store.DiaryJournal;
+import FinalProject.store.DraftStore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import javafx.application.Platform;
+
+/**
+ * 非同步的日記存取，所有資料庫與檔案 I/O 都在 virtual thread 上執行。
+ * <p>
+ * 回傳的 CompletableFuture 都是呼叫端專用的副本，cancel() 只會取消自己的後續處理，
+ * 不影響同一天正在進行、被其他視窗共用的讀取。要回到 JavaFX 執行緒請用 {@link #FX}。
+ */
+public class DiaryService {
+    /** 把後續處理丟回 JavaFX Application Thread。 */
+    public static final Executor FX = Platform::runLater;
+
+    private static final ExecutorService IO = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Path JOURNAL_DIR = Path.of("diary", "journal");
+    private static DiaryJournal journal;
+
+    // 全文索引第一次搜尋時才在背景建立；建立期間被儲存過的日期以新內容為準。
+    // savedDuringBuild 只在 indexBuilding 時記錄，建立結束就清空；兩者都由 index 的鎖保護
+    private static final DiaryIndex index = new DiaryIndex();
+    private static final Set<String> savedDuringBuild = new HashSet<>();
+    private static boolean indexBuilding;
+    private static CompletableFuture<Void> indexReady;
+
+    // 同一天同時只會有一個讀取；寫入依日期串成一條，保證順序
+    private static final Map<String, CompletableFuture<Diary>> loading = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<?>> saving = new ConcurrentHashMap<>();
+
+    // 草稿在編輯時寫入，資料庫寫入成功後刪除；savedFingerprint 記錄每天最後讀到 / 寫入的內容
+    private static final DraftStore drafts = new DraftStore(Path.of("diary", "drafts"));
+    private static final Map<String, String> savedFingerprint = new ConcurrentHashMap<>();
+
+    public static CompletableFuture<Diary> loadDiary(String date) {
+        CompletableFuture<?> pendingSave = saving.get(date);
+        if (pendingSave != null) {
+            // 讀取要排在尚未完成的寫入之後，才讀得到剛存的內容
+            return pendingSave.handle((ok, ex) -> null)
+                .thenCompose(v -> loadDiary(date));
+        }
+        CompletableFuture<Diary> shared = loading.computeIfAbsent(date, d -> {
+            CompletableFuture<Diary> f = CompletableFuture.supplyAsync(() -> {
+                Diary diary = DiaryCache.loadDiary(d);
+                if (diary != null) savedFingerprint.put(d, fingerprint(diary));
+                return diary;
+            }, IO);
+            f.whenComplete((r, ex) -> loading.remove(d, f));
+            return f;
+        });
+        return shared.copy();
+    }
+
+    public static CompletableFuture<List<DiarySummary>> getDiariesBefore(String before, int limit) {
+        return CompletableFuture.supplyAsync(() -> DiaryCache.getDiariesBefore(before, limit), IO);
+    }
+
+    public static CompletableFuture<Map<String, DiarySummary>> getMonthSummary(YearMonth month) {
+        return CompletableFuture.supplyAsync(() -> DiaryCache.getMonthSummary(month), IO);
+    }
+
+    /** 儲存的結果：寫入資料庫、內容沒變所以略過、或資料庫寫入失敗。 */
+    public enum SaveResult { SAVED, UNCHANGED, FAILED }
+
+    /**
+     * 寫入資料庫並附加到本機日記檔 diary/journal，完成時回傳資料庫是否寫入成功。
+     * 內容與上次讀到或寫入的版本相同時不會重寫。
+     */
+    public static CompletableFuture<Boolean> saveDiary(Diary diary) {
+        return enqueue(diary.getDate(), () -> write(diary) != SaveResult.FAILED);
+    }
+
+    /** 自動儲存：先寫本機草稿，再寫入資料庫；資料庫寫入成功後草稿就刪掉。 */
+    public static CompletableFuture<SaveResult> autosave(Diary diary) {
+        return enqueue(diary.getDate(), () -> {
+            writeDraft(diary);
+            return write(diary);
+        });
+    }
+
+    /** 只寫本機草稿，不動資料庫（關閉自動儲存時使用）。 */
+    public static CompletableFuture<Void> saveDraft(Diary diary) {
+        return enqueue(diary.getDate(), () -> {
+            writeDraft(diary);
+            return null;
+        });
+    }
+
+    /** 讀取某天尚未存進資料庫的草稿；草稿與已儲存的版本相同時刪掉並回傳 null。 */
+    public static CompletableFuture<Diary> loadDraft(String date) {
+        return enqueue(date, () -> {
+            try {
+                Diary d = drafts.load(date);
+                if (d != null && fingerprint(d).equals(savedFingerprint.get(date))) {
+                    drafts.delete(date);
+                    return null;
+                }
+                return d;
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 全文搜尋，依相關程度排序並附上內容片段。
+     * moodMask / weatherMask 是 {@link Mood#bit()}、{@link Weather#bit()} 的組合，0 表示不篩選。
+     */
+    public static CompletableFuture<List<SearchHit>> search(String query, int moodMask, int weatherMask, int limit) {
+        return indexReady().thenApplyAsync(
+            v -> index.search(query, moodMask, weatherMask, limit, DiaryCache::loadContents), IO);
+    }
+
+    /** 只依心情、天氣篩選（不搜尋內容），由新到舊最多 limit 筆，資料庫端用索引查詢。 */
+    public static CompletableFuture<List<DiarySummary>> filter(int moodMask, int weatherMask, int limit) {
+        return CompletableFuture.supplyAsync(() -> DiaryDAO.getDiariesMatching(moodMask, weatherMask, null, limit), IO);
+    }
+
+    /** 心情、天氣與連續寫作的統計，第一次呼叫時在背景建立。 */
+    public static CompletableFuture<StatsSnapshot> getStats() {
+        return CompletableFuture.supplyAsync(DiaryStats::snapshot, IO);
+    }
+
+    /** 從資料庫重新計算統計。 */
+    public static CompletableFuture<StatsSnapshot> rebuildStats() {
+        return CompletableFuture.supplyAsync(() -> {
+            DiaryStats.rebuild();
+            return DiaryStats.snapshot();
+        }, IO);
+    }
+
+    private static synchronized CompletableFuture<Void> indexReady() {
+        if (indexReady == null) {
+            indexReady = CompletableFuture.runAsync(() -> {
+                synchronized (index) {
+                    indexBuilding = true;
+                }
+                try {
+                    DiaryDAO.forEachDiary(d -> {
+                        synchronized (index) {
+                            if (!savedDuringBuild.contains(d.getDate())) index.update(d);
+                        }
+                    });
+                } finally {
+                    synchronized (index) {
+                        indexBuilding = false;
+                        savedDuringBuild.clear();
+                    }
+                }
+            }, IO);
+            // 讀取失敗時下次搜尋重新建立，不要一直回傳失敗的結果
+            CompletableFuture<Void> building = indexReady;
+            building.whenComplete((v, ex) -> {
+                if (ex != null) resetIndex(building);
+            });
+        }
+        return indexReady;
+    }
+
+    private static synchronized void resetIndex(CompletableFuture<Void> failed) {
+        if (indexReady != failed) return;
+        // 已經放進索引的日記重建時會再讀一次並覆蓋，不必清掉
+        indexReady = null;
+    }
+
+    /** 從本機日記檔讀取某天最後寫入的版本，資料庫讀不到時給 DiaryView 唯讀顯示；沒有紀錄或讀取失敗時為 null。 */
+    public static CompletableFuture<Diary> readJournal(String date) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return journal().read(date);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }, IO);
+    }
+
+    public static synchronized void shutdown() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            journal = null;
+        }
+    }
+
+    private static SaveResult write(Diary diary) {
+        String date = diary.getDate();
+        String fp = fingerprint(diary);
+        if (fp.equals(savedFingerprint.get(date))) {
+            deleteDraft(date);
+            return SaveResult.UNCHANGED;
+        }
+        boolean ok = DiaryCache.saveDiary(diary);
+        if (ok) {
+            savedFingerprint.put(date, fp);
+            deleteDraft(date);
+            DiaryStats.record(diary);
+            synchronized (index) {
+                if (indexBuilding) savedDuringBuild.add(date);
+                index.update(diary);
+            }
+        }
+        appendToJournal(diary);
+        return ok ? SaveResult.SAVED : SaveResult.FAILED;
+    }
+
+    // 同一天的寫入依序執行，前一個失敗也不影響後面的
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T> enqueue(String date, Supplier<T> task) {
+        CompletableFuture<?> result = saving.compute(date, (d, prev) -> {
+            CompletableFuture<?> before = prev == null
+                ? CompletableFuture.completedFuture(null)
+                : prev.handle((r, ex) -> null);
+            return before.thenApplyAsync(v -> task.get(), IO);
+        });
+        result.whenComplete((r, ex) -> saving.remove(date, result));
+        return ((CompletableFuture<T>) result).copy();
+    }
+
+    private static void writeDraft(Diary d) {
+        long t = System.nanoTime();
+        try {
+            drafts.save(d);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            Metrics.time(Metrics.FILE_WRITE, "draft", t);
+        }
+    }
+
+    private static void deleteDraft(String date) {
+        try {
+            drafts.delete(date);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // 各欄位的 SHA-256，用來判斷內容是否跟資料庫裡的一樣
+    private static String fingerprint(Diary d) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (String f : new String[]{d.getMood().label(), d.getWeather().label(), d.getContent(), d.getImagePath()}) {
+                if (f == null) {
+                    md.update((byte) 0);
+                } else {
+                    md.update((byte) 1);
+                    md.update(f.getBytes(StandardCharsets.UTF_8));
+                    md.update((byte) 0);
+                }
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void appendToJournal(Diary d) {
+        long t = System.nanoTime();
+        try {
+            journal().append(d);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        } finally {
+            Metrics.time(Metrics.FILE_WRITE, "journal", t);
+        }
+    }
+
+    private static synchronized DiaryJournal journal() throws IOException {
+        if (journal == null) journal = DiaryJournal.open(JOURNAL_DIR);
+        return journal;
+    }
+}
@@ -0,0 +1,159 @@
+package FinalProject.stats;
+
+import FinalProject.dao.DiaryDAO;
+import FinalProject.model.Diary;
+import FinalProject.model.DiarySummary;
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 心情與天氣的統計，預先彙總成每天一筆、每月一筆的計數，圖表不必掃描所有日記。
+ * 計數以 {@link Mood}、{@link Weather} 的 code 為索引，轉成文字是畫面的事。
+ * <p>
+ * 第一次使用時分頁讀取摘要（不讀內容）建立；之後每次儲存日記由 {@link #record}
+ * 增量更新：扣掉那天舊的心情 / 天氣、加上新的。連續寫作的區間以「起日 → 迄日」保存，
+ * 新增一天時只需要和前後區間合併。{@link #rebuild} 可以隨時從頭重新計算。
+ */
+public class DiaryStats {
+    private static final int PAGE_SIZE = 500;
+    private static final Mood[] MOODS = Mood.values();
+    private static final Weather[] WEATHERS = Weather.values();
+
+    private record Day(Mood mood, Weather weather) {}
+
+    /** 一份完整的統計資料，重建時先在旁邊建好再整個換上。 */
+    private static final class State {
+        final Map<LocalDate, Day> days = new HashMap<>();
+        // 每月一個 [天氣 code][心情 code] 的計數表
+        final TreeMap<YearMonth, int[][]> months = new TreeMap<>();
+        final TreeMap<YearMonth, Integer> totals = new TreeMap<>();
+        final TreeMap<LocalDate, LocalDate> runs = new TreeMap<>();
+
+        void put(String date, Mood mood, Weather weather) {
+            LocalDate day = LocalDate.parse(date);
+            Day now = new Day(mood, weather);
+            Day old = days.put(day, now);
+            if (now.equals(old)) return;
+            YearMonth ym = YearMonth.from(day);
+            if (old != null) {
+                count(ym, old, -1);
+            } else {
+                totals.merge(ym, 1, Integer::sum);
+                extendRuns(day);
+            }
+            count(ym, now, 1);
+        }
+
+        private void count(YearMonth ym, Day d, int delta) {
+            months.computeIfAbsent(ym, k -> new int[WEATHERS.length][MOODS.length])
+                [d.weather().code()][d.mood().code()] += delta;
+        }
+
+        // 新的一天和前一天結尾、後一天開頭的區間合併
+        private void extendRuns(LocalDate day) {
+            LocalDate from = day, to = day;
+            Map.Entry<LocalDate, LocalDate> prev = runs.floorEntry(day.minusDays(1));
+            if (prev != null && prev.getValue().equals(day.minusDays(1))) {
+                from = prev.getKey();
+            }
+            LocalDate nextEnd = runs.remove(day.plusDays(1));
+            if (nextEnd != null) to = nextEnd;
+            runs.put(from, to);
+        }
+
+        StatsSnapshot snapshot() {
+            List<MonthStats> list = new ArrayList<>(months.size());
+            for (Map.Entry<YearMonth, int[][]> e : months.entrySet()) {
+                int[][] counts = e.getValue();
+                Map<Weather, Map<Mood, Integer>> copy = new EnumMap<>(Weather.class);
+                for (Weather w : WEATHERS) {
+                    Map<Mood, Integer> byMood = new EnumMap<>(Mood.class);
+                    for (Mood m : MOODS) {
+                        int n = counts[w.code()][m.code()];
+                        if (n > 0) byMood.put(m, n);
+                    }
+                    if (!byMood.isEmpty()) copy.put(w, Collections.unmodifiableMap(byMood));
+                }
+                list.add(new MonthStats(e.getKey(), totals.getOrDefault(e.getKey(), 0),
+                    Collections.unmodifiableMap(copy)));
+            }
+            Streak longest = Streak.NONE;
+            for (Map.Entry<LocalDate, LocalDate> r : runs.entrySet()) {
+                Streak s = new Streak(r.getKey(), r.getValue());
+                if (s.days() > longest.days()) longest = s;
+            }
+            // 今天還沒寫的話，到昨天為止的連續紀錄仍然算數
+            Streak current = Streak.NONE;
+            LocalDate today = LocalDate.now();
+            Map.Entry<LocalDate, LocalDate> last = runs.floorEntry(today);
+            if (last != null && !last.getValue().isBefore(today.minusDays(1))) {
+                current = new Streak(last.getKey(), last.getValue());
+            }
+            return new StatsSnapshot(days.size(), list, longest, current);
+        }
+    }
+
+    private static final Object BUILD = new Object();
+    private static State state;
+    // 重建期間儲存的日記，重建完成後補套到新的統計上
+    private static List<Diary> savedDuringBuild;
+
+    /** 取得目前的統計，還沒建立過就先建立。 */
+    public static StatsSnapshot snapshot() {
+        synchronized (DiaryStats.class) {
+            if (state != null) return state.snapshot();
+        }
+        rebuild();
+        synchronized (DiaryStats.class) {
+            return state.snapshot();
+        }
+    }
+
+    /** 儲存日記後呼叫，更新那天的計數。 */
+    public static synchronized void record(Diary d) {
+        if (savedDuringBuild != null) savedDuringBuild.add(d);
+        if (state != null) state.put(d.getDate(), d.getMood(), d.getWeather());
+    }
+
+    /** 捨棄現有的統計，重新讀取所有摘要計算。 */
+    public static void rebuild() {
+        synchronized (BUILD) {
+            synchronized (DiaryStats.class) {
+                savedDuringBuild = new ArrayList<>();
+            }
+            State fresh = new State();
+            String before = null;
+            try {
+                while (true) {
+                    List<DiarySummary> page = DiaryDAO.getDiariesBefore(before, PAGE_SIZE);
+                    for (DiarySummary s : page) {
+                        fresh.put(s.getDate(), s.getMood(), s.getWeather());
+                    }
+                    if (page.size() < PAGE_SIZE) break;
+                    before = page.get(page.size() - 1).getDate();
+                }
+                synchronized (DiaryStats.class) {
+                    for (Diary d : savedDuringBuild) {
+                        fresh.put(d.getDate(), d.getMood(), d.getWeather());
+                    }
+                    state = fresh;
+                }
+            } finally {
+                // 讀取失敗（DiaryStoreException）時保留舊的統計，也不再收集儲存紀錄
+                synchronized (DiaryStats.class) {
+                    savedDuringBuild = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package FinalProject.stats;
+
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 一個月份的統計：總篇數與「天氣 → 心情 → 篇數」，依 code 的順序排列。
+ * 沒選心情或天氣的日記算在 {@link Mood#UNSET}、{@link Weather#UNSET}。
+ */
+public record MonthStats(
+    YearMonth month,
+    int total,
+    Map<Weather, Map<Mood, Integer>> moodByWeather
+) {
+    public Map<Mood, Integer> moods() {
+        Map<Mood, Integer> m = new EnumMap<>(Mood.class);
+        for (Map<Mood, Integer> byMood : moodByWeather.values()) {
+            byMood.forEach((mood, n) -> m.merge(mood, n, Integer::sum));
+        }
+        return m;
+    }
+
+    public Map<Weather, Integer> weathers() {
+        Map<Weather, Integer> m = new EnumMap<>(Weather.class);
+        moodByWeather.forEach((weather, byMood) -> {
+            int sum = 0;
+            for (int n : byMood.values()) sum += n;
+            m.put(weather, sum);
+        });
+        return m;
+    }
+}
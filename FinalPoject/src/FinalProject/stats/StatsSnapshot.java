@@ -0,0 +1,12 @@
+package FinalProject.stats;
+
+import java.util.List;
+
+/** 某個時間點的統計結果，months 依月份由舊到新排列。 */
+public record StatsSnapshot(
+    int total,
+    List<MonthStats> months,
+    Streak longest,
+    Streak current
+) {
+}
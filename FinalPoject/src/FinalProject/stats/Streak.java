@@ -0,0 +1,12 @@
+package FinalProject.stats;
+
+import java.time.LocalDate;
+
+/** 連續每天都有寫日記的一段期間（含頭尾）。 */
+public record Streak(LocalDate from, LocalDate to) {
+    public static final Streak NONE = new Streak(null, null);
+
+    public int days() {
+        return from == null ? 0 : (int) (to.toEpochDay() - from.toEpochDay()) + 1;
+    }
+}
@@ -0,0 +1,266 @@
+package FinalProject.store;
+
+import FinalProject.model.Diary;
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * 只能附加寫入的日記檔，取代原本一天一個的 Diary_&lt;date&gt;.txt。
+ * <p>
+ * 檔案分成多個 segment-NNNNNN.log，寫滿 {@link #SEGMENT_BYTES} 就換下一個。
+ * 每筆紀錄的格式：
+ * <pre>
+ *   int   bodyLength
+ *   int   crc32(body)
+ *   body: short dateLength, date, 接著 mood / weather / content / imagePath
+ *         每個欄位都是 int 長度（null 為 -1）+ UTF-8 位元組；心情與天氣存標籤文字，
+ *         讀取時再換回 code，所以選項的 code 調整不影響已寫入的檔案
+ * </pre>
+ * 記憶體內的索引記錄每個日期最新版本的位置，讀取只需要一次 positioned read。
+ * 開檔時掃描紀錄標頭重建索引，最後一個 segment 尾端若有寫到一半的紀錄會被截掉。
+ * 舊版本佔的空間超過一半的 segment 會在換檔時被壓縮：把仍有效的紀錄搬到最新的 segment 後刪掉。
+ */
+public class DiaryJournal implements Closeable {
+    static final long SEGMENT_BYTES = 4L * 1024 * 1024;
+    private static final int HEADER = 8;
+    private static final double COMPACT_RATIO = 0.5;
+
+    private record Location(int segment, long offset, int length) {}
+
+    private final Path dir;
+    private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+    private final Map<String, Location> index = new HashMap<>();
+    private final Map<Integer, Long> liveBytes = new HashMap<>();
+    private int active;
+    private long activeSize;
+
+    private DiaryJournal(Path dir) {
+        this.dir = dir;
+    }
+
+    public static DiaryJournal open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        DiaryJournal j = new DiaryJournal(dir);
+        List<Integer> ids = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "segment-*.log")) {
+            for (Path p : ds) {
+                String name = p.getFileName().toString();
+                ids.add(Integer.parseInt(name.substring(8, name.length() - 4)));
+            }
+        }
+        ids.sort(null);
+        for (int i = 0; i < ids.size(); i++) {
+            j.load(ids.get(i), i == ids.size() - 1);
+        }
+        if (ids.isEmpty()) {
+            j.roll(1);
+        } else {
+            j.active = ids.get(ids.size() - 1);
+            j.activeSize = j.segments.get(j.active).size();
+        }
+        return j;
+    }
+
+    public synchronized void append(Diary d) throws IOException {
+        ByteBuffer rec = encode(d);
+        int length = rec.remaining();
+        if (activeSize > 0 && activeSize + length > SEGMENT_BYTES) {
+            roll(active + 1);
+            compact();
+        }
+        long offset = activeSize;
+        writeFully(segments.get(active), rec, offset);
+        segments.get(active).force(false);
+        activeSize += length;
+        track(d.getDate(), new Location(active, offset, length));
+    }
+
+    /** 讀取某天最新的版本，沒有紀錄時回傳 null。 */
+    public synchronized Diary read(String date) throws IOException {
+        Location loc = index.get(date);
+        if (loc == null) return null;
+        ByteBuffer buf = ByteBuffer.allocate(loc.length());
+        FileChannel ch = segments.get(loc.segment());
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, loc.offset() + buf.position()) < 0) {
+                throw new IOException("日記檔被截斷：" + date);
+            }
+        }
+        buf.flip();
+        Diary d = decode(buf);
+        if (d == null) throw new IOException("日記檔校驗失敗：" + date);
+        return d;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /** 把舊版本佔多數的 segment 中仍有效的紀錄搬到目前的 segment，然後刪除該 segment。 */
+    public synchronized void compact() throws IOException {
+        for (Integer id : new ArrayList<>(segments.headMap(active).keySet())) {
+            FileChannel ch = segments.get(id);
+            long total = ch.size();
+            long live = liveBytes.getOrDefault(id, 0L);
+            if (total > 0 && live > total * COMPACT_RATIO) continue;
+
+            List<Map.Entry<String, Location>> moving = new ArrayList<>();
+            for (Map.Entry<String, Location> e : index.entrySet()) {
+                if (e.getValue().segment() == id) moving.add(e);
+            }
+            for (Map.Entry<String, Location> e : moving) {
+                Location from = e.getValue();
+                ByteBuffer buf = ByteBuffer.allocate(from.length());
+                while (buf.hasRemaining()) {
+                    if (ch.read(buf, from.offset() + buf.position()) < 0) break;
+                }
+                buf.flip();
+                long offset = activeSize;
+                writeFully(segments.get(active), buf, offset);
+                activeSize += from.length();
+                track(e.getKey(), new Location(active, offset, from.length()));
+            }
+            segments.get(active).force(false);
+            ch.close();
+            segments.remove(id);
+            liveBytes.remove(id);
+            Files.deleteIfExists(segmentPath(id));
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (FileChannel ch : segments.values()) ch.close();
+        segments.clear();
+    }
+
+    private void load(int id, boolean last) throws IOException {
+        FileChannel ch = FileChannel.open(segmentPath(id),
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(id, ch);
+        long size = ch.size();
+        long pos = 0;
+        ByteBuffer head = ByteBuffer.allocate(HEADER + 2 + 64);
+        while (pos + HEADER <= size) {
+            head.clear();
+            ch.read(head, pos);
+            head.flip();
+            int bodyLength = head.getInt();
+            head.getInt();
+            long end = pos + HEADER + bodyLength;
+            if (bodyLength < 2 || end > size) break;
+
+            String date;
+            if (last) {
+                // 最後一個 segment 可能有寫到一半的紀錄，逐筆驗證 checksum
+                ByteBuffer rec = ByteBuffer.allocate(HEADER + bodyLength);
+                ch.read(rec, pos);
+                rec.flip();
+                Diary d = decode(rec);
+                if (d == null) break;
+                date = d.getDate();
+            } else {
+                int dateLength = head.getShort();
+                byte[] b = new byte[dateLength];
+                head.get(b);
+                date = new String(b, StandardCharsets.UTF_8);
+            }
+            track(date, new Location(id, pos, (int) (end - pos)));
+            pos = end;
+        }
+        if (last && pos < size) {
+            System.err.println("⚠️ 日記檔 " + segmentPath(id).getFileName() + " 尾端不完整，已截斷");
+            ch.truncate(pos);
+        }
+    }
+
+    private void roll(int id) throws IOException {
+        FileChannel ch = FileChannel.open(segmentPath(id),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(id, ch);
+        active = id;
+        activeSize = ch.size();
+    }
+
+    private void track(String date, Location loc) {
+        Location old = index.put(date, loc);
+        if (old != null) liveBytes.merge(old.segment(), (long) -old.length(), Long::sum);
+        liveBytes.merge(loc.segment(), (long) loc.length(), Long::sum);
+    }
+
+    private Path segmentPath(int id) {
+        return dir.resolve(String.format("segment-%06d.log", id));
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long offset) throws IOException {
+        while (buf.hasRemaining()) {
+            offset += ch.write(buf, offset);
+        }
+    }
+
+    static ByteBuffer encode(Diary d) {
+        byte[] date = d.getDate().getBytes(StandardCharsets.UTF_8);
+        byte[][] fields = {bytes(d.getMood().label()), bytes(d.getWeather().label()), bytes(d.getContent()), bytes(d.getImagePath())};
+        int bodyLength = 2 + date.length;
+        for (byte[] f : fields) bodyLength += 4 + (f == null ? 0 : f.length);
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + bodyLength);
+        buf.putInt(bodyLength).putInt(0);
+        buf.putShort((short) date.length).put(date);
+        for (byte[] f : fields) {
+            if (f == null) {
+                buf.putInt(-1);
+            } else {
+                buf.putInt(f.length).put(f);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), HEADER, bodyLength);
+        buf.putInt(4, (int) crc.getValue());
+        buf.flip();
+        return buf;
+    }
+
+    /** 解析一筆完整紀錄（buf 剛好包含整筆），checksum 不符時回傳 null。 */
+    static Diary decode(ByteBuffer buf) {
+        int bodyLength = buf.getInt();
+        int expected = buf.getInt();
+        if (bodyLength != buf.remaining()) return null;
+        CRC32 crc = new CRC32();
+        crc.update(buf.slice(buf.position(), bodyLength));
+        if ((int) crc.getValue() != expected) return null;
+
+        byte[] date = new byte[buf.getShort()];
+        buf.get(date);
+        String[] fields = new String[4];
+        for (int i = 0; i < fields.length; i++) {
+            int n = buf.getInt();
+            if (n < 0) continue;
+            byte[] b = new byte[n];
+            buf.get(b);
+            fields[i] = new String(b, StandardCharsets.UTF_8);
+        }
+        return new Diary(new String(date, StandardCharsets.UTF_8),
+            Mood.fromLabel(fields[0]), Weather.fromLabel(fields[1]), fields[2], fields[3]);
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+}
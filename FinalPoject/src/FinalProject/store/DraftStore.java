@@ -0,0 +1,53 @@
+package FinalProject.store;
+
+import FinalProject.model.Diary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * 編輯中、還沒寫進資料庫的草稿，一天一個 &lt;date&gt;.draft 檔。
+ * <p>
+ * 紀錄格式與 {@link DiaryJournal} 相同（含 checksum），先寫暫存檔再改名，
+ * 程式當掉時讀到的一定是某個完整版本；checksum 不符的草稿視為不存在。
+ */
+public class DraftStore {
+    private final Path dir;
+
+    public DraftStore(Path dir) {
+        this.dir = dir;
+    }
+
+    public void save(Diary d) throws IOException {
+        Files.createDirectories(dir);
+        ByteBuffer rec = DiaryJournal.encode(d);
+        Path tmp = Files.createTempFile(dir, "draft", ".tmp");
+        Files.write(tmp, Arrays.copyOfRange(rec.array(), rec.position(), rec.limit()));
+        Files.move(tmp, file(d.getDate()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** 讀取某天的草稿，沒有或已損壞時回傳 null。 */
+    public Diary load(String date) throws IOException {
+        byte[] b;
+        try {
+            b = Files.readAllBytes(file(date));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (b.length < 8) return null;
+        return DiaryJournal.decode(ByteBuffer.wrap(b));
+    }
+
+    public void delete(String date) throws IOException {
+        Files.deleteIfExists(file(date));
+    }
+
+    private Path file(String date) {
+        return dir.resolve(date + ".draft");
+    }
+}
@@ -0,0 +1,318 @@
+package FinalProject.store;
+
+import FinalProject.dao.DiaryStore;
+import FinalProject.model.Diary;
+import FinalProject.model.DiarySummary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * 不需要 MySQL 的本機日記儲存，整個資料檔以 memory-mapped 方式讀寫。
+ * <p>
+ * 檔案開頭 16 bytes 是標頭（magic、版本、已提交長度），後面是與 {@link DiaryJournal} 相同格式的紀錄。
+ * 寫入時先把紀錄寫到已提交長度之後並 force 到磁碟，再更新標頭的已提交長度，
+ * 所以當機時最多遺失尚未提交的那一筆，不會讀到寫一半的資料。
+ * 開檔時掃描已提交的紀錄，在記憶體建立依日期排序的索引（含摘要），
+ * 列表與月曆查詢只讀索引，讀單篇日記則直接從映射的記憶體解碼。
+ * <p>
+ * 同一天每存一次就多一筆紀錄，舊的紀錄不再被索引引用。檔案超過 {@link #COMPACT_MIN_BYTES}
+ * 且超過一半是舊紀錄時（或寫入會超過 2GB 時）整理一次：把每天最新的紀錄寫到 {@code .compact} 檔，
+ * force 之後才寫入 magic，再關閉原檔、放掉映射，以 ATOMIC_MOVE 取代原檔並重新映射。
+ * <p>
+ * Java 無法立即解除映射，Windows 上原檔在映射被回收前都不能被取代。這時改用 {@code .compact}
+ * 檔繼續讀寫（原檔不再寫入），下次開檔、還沒有映射時再把它換成原檔。
+ * 所以開檔時 magic 完整的 {@code .compact} 檔一定是最新的一代，magic 不完整的則是整理到一半的暫存檔。
+ */
+public class MappedDiaryStore implements DiaryStore, Closeable {
+    private static final int MAGIC = 0x44495259; // "DIRY"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    private static final long INITIAL_CAPACITY = 16L * 1024 * 1024;
+    private static final long COMPACT_MIN_BYTES = INITIAL_CAPACITY;
+    private static final double COMPACT_DEAD_RATIO = 0.5;
+
+    private record Entry(int offset, int length, DiarySummary summary) {}
+
+    private final Path file;
+    // 目前映射的檔案，整理後無法取代原檔時是 .compact 檔
+    private Path current;
+    private FileChannel channel;
+    private TreeMap<String, Entry> index = new TreeMap<>();
+    private MappedByteBuffer map;
+    private int committed;
+    // 索引引用的紀錄總長度，committed - HEADER - live 就是被取代的舊紀錄
+    private long live;
+
+    private MappedDiaryStore(Path file, FileChannel channel) {
+        this.file = file;
+        this.current = file;
+        this.channel = channel;
+    }
+
+    public static MappedDiaryStore open(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Path next = compactFile(file);
+        if (isComplete(next)) {
+            // 上次整理好但沒能取代原檔，現在還沒有映射，可以換上
+            Files.move(next, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("🗜 已換上上次整理好的本機資料檔");
+        } else {
+            // 上次整理到一半就結束的暫存檔
+            Files.deleteIfExists(next);
+        }
+        FileChannel ch = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedDiaryStore s = new MappedDiaryStore(file, ch);
+        boolean fresh = ch.size() < HEADER;
+        s.remap(Math.max(ch.size(), INITIAL_CAPACITY));
+        if (fresh) {
+            s.map.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, HEADER);
+            s.map.force(0, HEADER);
+        } else if (s.map.getInt(0) != MAGIC) {
+            ch.close();
+            throw new IOException(file + " 不是日記資料檔");
+        }
+        s.load();
+        return s;
+    }
+
+    @Override
+    public synchronized boolean saveDiary(Diary diary) {
+        return saveBatch(List.of(diary));
+    }
+
+    @Override
+    public synchronized boolean saveBatch(List<Diary> diaries) {
+        try {
+            List<ByteBuffer> records = new ArrayList<>(diaries.size());
+            long added = 0;
+            for (Diary d : diaries) {
+                ByteBuffer rec = DiaryJournal.encode(d);
+                records.add(rec);
+                added += rec.remaining();
+            }
+            if (committed + added > Integer.MAX_VALUE && committed > HEADER + live) compact();
+            long needed = committed + added;
+            if (needed > Integer.MAX_VALUE) throw new IOException("本機資料檔已超過 2GB");
+            if (needed > map.capacity()) remap(Math.max(needed, map.capacity() * 2L));
+
+            int pos = committed;
+            for (ByteBuffer rec : records) {
+                map.put(pos, rec, 0, rec.remaining());
+                pos += rec.remaining();
+            }
+            map.force(committed, pos - committed);
+            map.putLong(8, pos);
+            map.force(0, HEADER);
+
+            pos = committed;
+            for (int i = 0; i < diaries.size(); i++) {
+                Diary d = diaries.get(i);
+                int length = records.get(i).remaining();
+                put(d.getDate(), new Entry(pos, length, summaryOf(d)));
+                pos += length;
+            }
+            committed = pos;
+            if (shouldCompact()) compact();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized Diary loadDiary(String date) {
+        Entry e = index.get(date);
+        return e == null ? null : read(e);
+    }
+
+    @Override
+    public synchronized List<Diary> getAllDiaries() {
+        List<Diary> list = new ArrayList<>(index.size());
+        for (Entry e : index.descendingMap().values()) list.add(read(e));
+        return list;
+    }
+
+    @Override
+    public void forEachDiary(Consumer<Diary> action) {
+        List<Entry> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(index.descendingMap().values());
+        }
+        for (Entry e : entries) {
+            Diary d;
+            synchronized (this) {
+                d = read(e);
+            }
+            action.accept(d);
+        }
+    }
+
+    @Override
+    public synchronized List<DiarySummary> getDiariesBefore(String before, int limit) {
+        NavigableMap<String, Entry> range = before == null
+            ? index.descendingMap()
+            : index.headMap(before, false).descendingMap();
+        List<DiarySummary> list = new ArrayList<>(limit);
+        for (Entry e : range.values()) {
+            if (list.size() == limit) break;
+            list.add(e.summary());
+        }
+        return list;
+    }
+
+    @Override
+    public synchronized List<DiarySummary> getDiariesInMonth(YearMonth month) {
+        List<DiarySummary> list = new ArrayList<>();
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+        for (Entry e : index.subMap(from, true, to, false).descendingMap().values()) {
+            list.add(e.summary());
+        }
+        return list;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+
+    private void load() {
+        long stored = map.getLong(8);
+        int pos = HEADER;
+        int end = (int) Math.min(stored, map.capacity());
+        while (pos + 8 <= end) {
+            int bodyLength = map.getInt(pos);
+            int length = 8 + bodyLength;
+            if (bodyLength < 2 || pos + length > end) break;
+            Diary d = DiaryJournal.decode(map.slice(pos, length));
+            if (d == null) break;
+            put(d.getDate(), new Entry(pos, length, summaryOf(d)));
+            pos += length;
+        }
+        if (pos != stored) {
+            System.err.println("⚠️ 本機資料檔尾端不完整，已忽略 " + (stored - pos) + " bytes");
+            map.putLong(8, pos);
+            map.force(0, HEADER);
+        }
+        committed = pos;
+    }
+
+    private void put(String date, Entry e) {
+        Entry old = index.put(date, e);
+        if (old != null) live -= old.length();
+        live += e.length();
+    }
+
+    private boolean shouldCompact() {
+        long dead = committed - HEADER - live;
+        // 已經在用 .compact 檔時，要等下次開檔換上之後才能再整理
+        return current.equals(file) && committed >= COMPACT_MIN_BYTES && dead > (committed - HEADER) * COMPACT_DEAD_RATIO;
+    }
+
+    /** 只保留每天最新的紀錄，寫成新檔後取代原檔。沒有整理時維持原狀並回傳 false。 */
+    private boolean compact() {
+        if (!current.equals(file)) return false;
+        Path tmp = compactFile(file);
+        TreeMap<String, Entry> moved = new TreeMap<>();
+        int pos = HEADER;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // magic 最後才寫，開檔時據此分辨暫存檔是否完整
+            ByteBuffer header = ByteBuffer.allocate(HEADER)
+                .putInt(0).putInt(VERSION).putLong(HEADER + live).flip();
+            writeFully(out, header);
+            for (Map.Entry<String, Entry> e : index.entrySet()) {
+                Entry old = e.getValue();
+                writeFully(out, map.slice(old.offset(), old.length()));
+                moved.put(e.getKey(), new Entry(pos, old.length(), old.summary()));
+                pos += old.length();
+            }
+            out.force(true);
+            out.write(ByteBuffer.allocate(4).putInt(MAGIC).flip(), 0);
+            out.force(true);
+        } catch (IOException e) {
+            System.err.println("⚠️ 無法整理本機資料檔，繼續使用原檔：" + e);
+            e.printStackTrace();
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+            }
+            return false;
+        }
+
+        // 先關閉原檔並放掉映射，Windows 上仍被開啟或映射的檔案無法被取代
+        int before = committed;
+        try {
+            map.force();
+            map = null;
+            channel.close();
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                System.err.println("⚠️ 無法以整理好的檔案取代 " + file + "：" + e
+                    + "，暫時改用 " + tmp + "，下次開啟時再取代");
+                current = tmp;
+            }
+            channel = FileChannel.open(current, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            remap(Math.max(channel.size(), INITIAL_CAPACITY));
+        } catch (IOException e) {
+            throw new UncheckedIOException("整理後無法重新開啟本機資料檔", e);
+        }
+        index = moved;
+        committed = pos;
+        System.out.println("🗜 本機資料檔已整理：" + before + " → " + committed + " bytes");
+        return true;
+    }
+
+    // 整理好的 .compact 檔存在且 magic 已經寫入
+    private static boolean isComplete(Path next) throws IOException {
+        if (!Files.exists(next)) return false;
+        try (FileChannel ch = FileChannel.open(next, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && ch.read(magic, magic.position()) > 0) {
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) out.write(buf);
+    }
+
+    private static Path compactFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".compact");
+    }
+
+    private Diary read(Entry e) {
+        Diary d = DiaryJournal.decode(map.slice(e.offset(), e.length()));
+        if (d == null) throw new IllegalStateException("本機資料檔校驗失敗：" + e.summary().getDate());
+        return d;
+    }
+
+    private void remap(long capacity) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private static DiarySummary summaryOf(Diary d) {
+        return new DiarySummary(d.getDate(), d.getMood(), d.getWeather(), d.getImagePath() != null);
+    }
+}
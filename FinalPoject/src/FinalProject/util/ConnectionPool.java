@@ -0,0 +1,247 @@
+package FinalProject.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定上限的 JDBC 連線池。
+ * 借出時驗證閒置過久的連線，背景定期關閉超過 idleTimeout 的閒置連線。
+ * 借出的 Connection 是代理物件，close() 會把連線還回池中而不是真的關閉。
+ */
+public class ConnectionPool {
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long borrowTimeoutMs;
+    private final int validationTimeoutSec;
+    private final long validationIntervalMs;
+    private final long idleTimeoutMs;
+
+    // 最近歸還的放在前面，淘汰時從尾端（閒置最久）開始
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final ScheduledExecutorService evictor;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private volatile boolean closed;
+
+    public ConnectionPool(Properties props) {
+        this.url = props.getProperty("db.url");
+        this.user = props.getProperty("db.user");
+        this.password = props.getProperty("db.password");
+        this.maxSize = intProp(props, "pool.maxSize", 8);
+        this.minIdle = Math.min(intProp(props, "pool.minIdle", 1), maxSize);
+        this.borrowTimeoutMs = longProp(props, "pool.borrowTimeoutMs", 5000);
+        this.validationTimeoutSec = intProp(props, "pool.validationTimeoutSec", 2);
+        this.validationIntervalMs = longProp(props, "pool.validationIntervalMs", 1000);
+        this.idleTimeoutMs = longProp(props, "pool.idleTimeoutMs", 300_000);
+        long evictionIntervalMs = longProp(props, "pool.evictionIntervalMs", 60_000);
+
+        if (url == null) {
+            throw new IllegalArgumentException("缺少 db.url 設定");
+        }
+        this.permits = new Semaphore(maxSize, true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle,
+            evictionIntervalMs, evictionIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() throws SQLException {
+        if (closed) throw new SQLException("連線池已關閉");
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLException("等待資料庫連線逾時（" + borrowTimeoutMs + "ms）");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待資料庫連線時被中斷", e);
+        }
+
+        try {
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                if (isUsable(pc)) break;
+                closeQuietly(pc.raw);
+            }
+            if (pc == null) {
+                pc = new PooledConnection(DriverManager.getConnection(url, user, password));
+            }
+            recordWait(System.nanoTime() - start);
+            active.incrementAndGet();
+            return pc.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** 預先建立 minIdle 條連線，讓第一次查詢不用等握手。 */
+    public void warmUp() throws SQLException {
+        while (idle.size() < minIdle && !closed) {
+            PooledConnection pc = new PooledConnection(DriverManager.getConnection(url, user, password));
+            pc.lastUsed = System.nanoTime();
+            idle.offerLast(pc);
+        }
+    }
+
+    public PoolStats stats() {
+        long borrows = borrowCount.sum();
+        return new PoolStats(
+            active.get(),
+            idle.size(),
+            maxSize,
+            borrows,
+            timeoutCount.sum(),
+            borrows == 0 ? 0 : totalWaitNanos.sum() / 1e6 / borrows,
+            maxWaitNanos.get() / 1e6
+        );
+    }
+
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            closeQuietly(pc.raw);
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        active.decrementAndGet();
+        try {
+            boolean broken = pc.raw.isClosed();
+            if (!broken && !pc.raw.getAutoCommit()) {
+                pc.raw.rollback();
+                pc.raw.setAutoCommit(true);
+            }
+            if (broken || closed) {
+                closeQuietly(pc.raw);
+            } else {
+                pc.lastUsed = System.nanoTime();
+                idle.offerFirst(pc);
+            }
+        } catch (SQLException e) {
+            closeQuietly(pc.raw);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        long idleMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pc.lastUsed);
+        if (idleMs < validationIntervalMs) return true;
+        try {
+            return pc.raw.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() > minIdle) {
+            PooledConnection pc = it.next();
+            if (TimeUnit.NANOSECONDS.toMillis(now - pc.lastUsed) >= idleTimeoutMs && idle.remove(pc)) {
+                closeQuietly(pc.raw);
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.increment();
+        totalWaitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static int intProp(Properties p, String key, int def) {
+        String v = p.getProperty(key);
+        return v == null ? def : Integer.parseInt(v.trim());
+    }
+
+    private static long longProp(Properties p, String key, long def) {
+        String v = p.getProperty(key);
+        return v == null ? def : Long.parseLong(v.trim());
+    }
+
+    private final class PooledConnection {
+        final Connection raw;
+        volatile long lastUsed = System.nanoTime();
+
+        PooledConnection(Connection raw) {
+            this.raw = raw;
+        }
+
+        /** 每次借出都產生新的代理，避免舊的引用在歸還後還能操作連線。 */
+        Connection lease() {
+            boolean[] returned = {false};
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!returned[0]) {
+                                returned[0] = true;
+                                release(this);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return returned[0] || raw.isClosed();
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "Pooled[" + raw + "]";
+                        }
+                        case "unwrap", "isWrapperFor" -> { }
+                        default -> {
+                            if (returned[0]) throw new SQLException("連線已歸還連線池");
+                        }
+                    }
+                    try {
+                        return method.invoke(raw, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        }
+    }
+}
@@ -1,20 +1,89 @@
 package FinalProject.util;
 
+import FinalProject.metrics.Metrics;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
 public class DBUtil {
-    private static final String URL = "jdbc:mysql://140.119.19.73:3315/TG03?useSSL=false&serverTimezone=Asia/Taipei";
-    private static final String USER = "TG03";
-    private static final String PASSWORD = "VN8Q7j";
+    // 可以用 -Ddiary.config=... 改用其他設定檔（例如效能測試用的本機資料庫）
+    private static final String CONFIG = System.getProperty("diary.config", "config/db.properties");
+    private static volatile ConnectionPool pool;
+    private static Properties config;
 
-    public static Connection getConnection() {
+    /** 從連線池借一條連線，用完請 close() 歸還。 */
+    public static Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
         try {
-            return DriverManager.getConnection(URL, USER, PASSWORD);
+            Connection c = pool().borrow();
+            Metrics.time(Metrics.CONNECTION, null, start);
+            return c;
         } catch (SQLException e) {
+            Metrics.count(Metrics.CONNECTION_ERRORS, null);
             System.err.println("❌ 無法連線到資料庫：" + e.getMessage());
-            return null;
+            throw e;
+        }
+    }
+
+    public static PoolStats getPoolStats() {
+        ConnectionPool p = pool;
+        return p == null ? new PoolStats(0, 0, 0, 0, 0, 0, 0) : p.stats();
+    }
+
+    public static void warmUp() {
+        try {
+            pool().warmUp();
+        } catch (SQLException e) {
+            System.err.println("❌ 無法預先建立資料庫連線：" + e.getMessage());
+        }
+    }
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            System.out.println("📊 連線池統計：" + pool.stats());
+            pool.close();
+            pool = null;
+        }
+    }
+
+    private static ConnectionPool pool() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DBUtil.class) {
+                p = pool;
+                if (p == null) {
+                    Properties props = config();
+                    if (props.getProperty("db.url") == null) {
+                        throw new SQLException(CONFIG + " 缺少 db.url 設定");
+                    }
+                    p = new ConnectionPool(props);
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /** 讀取設定檔（預設 config/db.properties）裡的設定值。 */
+    public static String getSetting(String key, String def) {
+        return config().getProperty(key, def);
+    }
+
+    private static synchronized Properties config() {
+        if (config != null) return config;
+        Properties props = new Properties();
+        try (Reader r = new InputStreamReader(new FileInputStream(CONFIG), StandardCharsets.UTF_8)) {
+            props.load(r);
+        } catch (IOException e) {
+            System.err.println("❌ 無法讀取 " + CONFIG + "：" + e.getMessage());
         }
+        config = props;
+        return props;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,134 @@
+package FinalProject.util;
+
+import FinalProject.dao.DiaryDAO;
+import FinalProject.model.Diary;
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 把 diary/ 資料夾內的舊文字檔批次匯入 diary 資料表。
+ * <p>
+ * 用法：java FinalProject.util.DiaryImporter [資料夾] [--batch=500] [--threads=N]
+ * <p>
+ * 多個執行緒平行解析檔案，主執行緒每湊滿一批就以 JDBC batch 寫入，每批一個交易。
+ * 只新增資料庫裡還沒有的日期：文字檔是舊的副本、也不記錄圖片，已經有的日記不會被覆蓋。
+ * 格式錯誤的檔案只會列出來，不會中斷整個匯入。
+ * 同一天有多個檔案（例如 2025-04-02.txt 與 Diary_2025-04-02.txt）時取最後修改的那個。
+ */
+public class DiaryImporter {
+    // 佇列結束的標記，只比對參考，不會寫入資料庫
+    private static final Diary END = new Diary(null, Mood.UNSET, Weather.UNSET, null, null);
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Path.of("diary");
+        int batchSize = 500;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String a : args) {
+            if (a.startsWith("--batch=")) batchSize = Integer.parseInt(a.substring(8));
+            else if (a.startsWith("--threads=")) threads = Integer.parseInt(a.substring(10));
+            else dir = Path.of(a);
+        }
+
+        try {
+            run(dir, batchSize, threads);
+        } finally {
+            DBUtil.shutdown();
+        }
+    }
+
+    public static void run(Path dir, int batchSize, int threads) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Map<String, Path> files = scan(dir);
+        System.out.println("📂 找到 " + files.size() + " 天的日記檔");
+
+        BlockingQueue<Diary> parsed = new ArrayBlockingQueue<>(batchSize * 4);
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(files.size());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        if (files.isEmpty()) parsed.put(END);
+        for (Path f : files.values()) {
+            pool.execute(() -> {
+                try {
+                    List<String> lines = Files.readAllLines(f, StandardCharsets.UTF_8);
+                    parsed.put(DiaryTextFormat.parse(f.getFileName().toString(), lines));
+                } catch (IllegalArgumentException | IOException e) {
+                    rejected.incrementAndGet();
+                    System.err.println("⚠️ 略過 " + f.getFileName() + "：" + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        try {
+                            parsed.put(END);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+
+        int written = 0, existing = 0, failed = 0;
+        List<Diary> batch = new ArrayList<>(batchSize);
+        for (Diary d = parsed.take(); d != END; d = parsed.take()) {
+            batch.add(d);
+            if (batch.size() == batchSize) {
+                int added = DiaryDAO.insertMissing(batch);
+                if (added < 0) failed += batch.size();
+                else {
+                    written += added;
+                    existing += batch.size() - added;
+                }
+                batch.clear();
+                System.out.printf("… 已寫入 %d 筆%n", written);
+            }
+        }
+        int added = DiaryDAO.insertMissing(batch);
+        if (added < 0) failed += batch.size();
+        else {
+            written += added;
+            existing += batch.size() - added;
+        }
+
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("✅ 匯入完成：寫入 %d 筆，已有日記略過 %d 筆，失敗 %d 筆，略過 %d 個檔案，%.1f 秒（%.0f 筆/秒）%n",
+            written, existing, failed, rejected.get(), secs, written / Math.max(secs, 1e-9));
+    }
+
+    private static Map<String, Path> scan(Path dir) throws IOException {
+        Map<String, Path> newest = new HashMap<>();
+        Map<String, Long> mtimes = new HashMap<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.txt")) {
+            for (Path f : ds) {
+                String date = DiaryTextFormat.dateOf(f.getFileName().toString());
+                if (date == null) {
+                    System.err.println("⚠️ 略過 " + f.getFileName() + "：檔名不是日記格式");
+                    continue;
+                }
+                long mtime = Files.getLastModifiedTime(f).toMillis();
+                Long prev = mtimes.get(date);
+                if (prev == null || mtime > prev) {
+                    mtimes.put(date, mtime);
+                    newest.put(date, f);
+                }
+            }
+        }
+        return newest;
+    }
+}
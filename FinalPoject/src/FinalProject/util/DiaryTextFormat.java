@@ -0,0 +1,111 @@
+package FinalProject.util;
+
+import FinalProject.model.Diary;
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * diary/ 資料夾內舊文字檔的格式，現在只用來匯入，新的儲存改寫到 diary/journal。
+ * <p>
+ * 主要格式是四行：日期、心情、天氣、內容（內容可以多行）。
+ * 也接受舊版的 &lt;date&gt;.txt（少了日期那一行）以及「心情: 😊」這種標籤格式，
+ * 日期一律以檔名為準。
+ */
+public class DiaryTextFormat {
+    private static final Pattern FILE_NAME = Pattern.compile("(?:Diary_)?(\\d{4}-\\d{2}-\\d{2})\\.txt");
+    private static final Pattern LABEL = Pattern.compile("^(日期|星期|天氣|心情|內容)\\s*[:：]\\s*(.*)$");
+
+    /** 從檔名取出日期，不是日記檔時回傳 null。 */
+    public static String dateOf(String fileName) {
+        Matcher m = FILE_NAME.matcher(fileName);
+        return m.matches() ? m.group(1) : null;
+    }
+
+    /** 解析一個日記檔，格式不正確時丟出 IllegalArgumentException。 */
+    public static Diary parse(String fileName, List<String> lines) {
+        String date = dateOf(fileName);
+        if (date == null) {
+            throw new IllegalArgumentException("檔名不是日記格式");
+        }
+        try {
+            LocalDate.parse(date);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("日期不正確：" + date);
+        }
+
+        if (!lines.isEmpty() && LABEL.matcher(lines.get(0)).matches()) {
+            return parseLabelled(date, lines);
+        }
+
+        int i = 0;
+        if (!lines.isEmpty() && lines.get(0).strip().equals(date)) {
+            i = 1;
+        } else if (!lines.isEmpty() && dateOf(lines.get(0).strip() + ".txt") != null) {
+            throw new IllegalArgumentException("內文日期 " + lines.get(0).strip() + " 與檔名不符");
+        }
+        if (lines.size() < i + 2) {
+            throw new IllegalArgumentException("缺少心情或天氣");
+        }
+        String mood = lines.get(i).strip();
+        String weather = lines.get(i + 1).strip();
+        if (mood.isEmpty() || weather.isEmpty()) {
+            throw new IllegalArgumentException("心情或天氣是空白");
+        }
+        String content = String.join("\n", lines.subList(i + 2, lines.size()));
+        return diary(date, mood, weather, content);
+    }
+
+    private static Diary parseLabelled(String date, List<String> lines) {
+        String mood = null, weather = null;
+        StringBuilder content = new StringBuilder();
+        int i = 0;
+        for (; i < lines.size(); i++) {
+            Matcher m = LABEL.matcher(lines.get(i));
+            if (!m.matches()) break;
+            String value = m.group(2).strip();
+            switch (m.group(1)) {
+                case "心情" -> mood = value;
+                case "天氣" -> weather = value;
+                case "日期" -> {
+                    if (!value.isEmpty() && !value.equals(date)) {
+                        throw new IllegalArgumentException("內文日期 " + value + " 與檔名不符");
+                    }
+                }
+                case "內容" -> content.append(value);
+                default -> { }
+            }
+            if (m.group(1).equals("內容")) {
+                i++;
+                break;
+            }
+        }
+        for (; i < lines.size(); i++) {
+            if (!content.isEmpty()) content.append('\n');
+            content.append(lines.get(i));
+        }
+        if (mood == null || mood.isEmpty() || weather == null || weather.isEmpty()) {
+            throw new IllegalArgumentException("缺少心情或天氣");
+        }
+        return diary(date, mood, weather, content.toString());
+    }
+
+    // 心情與天氣對到選單上的其中一個（舊版的寫法見 Mood / Weather.fromLabel），
+    // 還是不認得的話匯入成未設定並提出警告，不讓整篇日記被略過
+    private static Diary diary(String date, String mood, String weather, String content) {
+        Mood m = Mood.fromLabel(mood);
+        if (m == Mood.UNSET) {
+            System.err.println("⚠️ " + date + " 不認得的心情「" + mood + "」，匯入為未設定");
+        }
+        Weather w = Weather.fromLabel(weather);
+        if (w == Weather.UNSET) {
+            System.err.println("⚠️ " + date + " 不認得的天氣「" + weather + "」，匯入為未設定");
+        }
+        return new Diary(date, m, w, content, null);
+    }
+}
@@ -0,0 +1,19 @@
+package FinalProject.util;
+
+public record PoolStats(
+    int active,
+    int idle,
+    int maxSize,
+    long borrowCount,
+    long timeoutCount,
+    double avgWaitMillis,
+    double maxWaitMillis
+) {
+    @Override
+    public String toString() {
+        return String.format(
+            "active=%d idle=%d max=%d borrows=%d timeouts=%d avgWait=%.2fms maxWait=%.2fms",
+            active, idle, maxSize, borrowCount, timeoutCount, avgWaitMillis, maxWaitMillis
+        );
+    }
+}
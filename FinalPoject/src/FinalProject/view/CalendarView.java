@@ -1,7 +1,15 @@
 package FinalProject.view;
 
+import FinalProject.metrics.Metrics;
+import FinalProject.model.DiarySummary;
+import FinalProject.model.MoodPalette;
+import FinalProject.service.DiaryService;
+
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
@@ -10,18 +18,48 @@ import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
 public class CalendarView {
-    private final Runnable onSave;
+    // 6 週 x 7 天，任何月份都放得下
+    private static final int CELLS = 42;
+    // 日曆視窗只建立一次，再次開啟時重新讀取目前月份
+    private static CalendarView instance;
+
+    private Runnable onSave;
+    // 背景預先載入前後月份，切換月份時直接使用
+    private final Map<YearMonth, CompletableFuture<Map<String, DiarySummary>>> months =
+        new ConcurrentHashMap<>();
+    private final Button[] cells = new Button[CELLS];
+    private Stage stage;
+    private ComboBox<Integer> yearBox;
+    private ComboBox<Integer> monthBox;
+    private YearMonth shown;
+    private final Label loadError = new Label("⚠️ 無法讀取這個月的日記");
+    private final Button retryBtn = new Button("🔄 重試");
+    private final HBox errorBar = new HBox(10, loadError, retryBtn);
 
-    public CalendarView(Runnable onSave) {
-        this.onSave = onSave;
+    private CalendarView() {
+    }
+
+    public static void open(Runnable onSave) {
+        if (instance == null) {
+            instance = new CalendarView();
+            instance.build();
+        }
+        instance.onSave = onSave;
+        if (!instance.stage.isShowing()) {
+            // 關著的期間可能有別的視窗存過日記
+            instance.months.clear();
+            instance.buildCalendar(instance.yearBox.getValue(), instance.monthBox.getValue());
+        }
+        instance.stage.show();
+        instance.stage.toFront();
     }
 
-    public void show() {
-        Stage stage = new Stage();
+    private void build() {
+        stage = new Stage();
         stage.setTitle("📅 日曆模式");
 
-        ComboBox<Integer> yearBox = new ComboBox<>();
-        ComboBox<Integer> monthBox = new ComboBox<>();
+        yearBox = new ComboBox<>();
+        monthBox = new ComboBox<>();
         int curY = LocalDate.now().getYear();
         for (int y = curY - 2; y <= curY + 2; y++) yearBox.getItems().add(y);
         yearBox.setValue(curY);
@@ -34,7 +72,24 @@ public class CalendarView {
         grid.setVgap(6);
         grid.setPadding(new Insets(12));
 
-        load.setOnAction(e -> buildCalendar(yearBox.getValue(), monthBox.getValue(), grid));
+        String[] days = {"一","二","三","四","五","六","日"};
+        for (int i = 0; i < 7; i++) {
+            Label l = new Label(days[i]);
+            l.setStyle("-fx-font-weight:bold;");
+            grid.add(l, i, 0);
+        }
+        // 格子只建立一次，換月份時只改文字、顏色與要開的日期
+        for (int i = 0; i < CELLS; i++) {
+            Button b = new Button();
+            b.setPrefSize(90, 50);
+            cells[i] = b;
+            grid.add(b, i % 7, i / 7 + 1);
+        }
+
+        load.setOnAction(e -> reload());
+        retryBtn.setOnAction(e -> reload());
+        yearBox.setOnAction(e -> buildCalendar(yearBox.getValue(), monthBox.getValue()));
+        monthBox.setOnAction(e -> buildCalendar(yearBox.getValue(), monthBox.getValue()));
 
         HBox top = new HBox(10,
             new Label("年："), yearBox,
@@ -43,43 +98,95 @@ public class CalendarView {
         );
         top.setPadding(new Insets(12));
 
-        VBox root = new VBox(6, top, grid);
-        buildCalendar(curY, LocalDate.now().getMonthValue(), grid);
+        errorBar.setPadding(new Insets(0, 12, 0, 12));
+        showError(false);
+
+        VBox root = new VBox(6, top, errorBar, grid);
 
         Scene scene = new Scene(root, 820, 600);
         stage.setScene(scene);
-        stage.show();
+        stage.setOnHidden(e -> shown = null);
     }
 
-    private void buildCalendar(int year, int month, GridPane grid) {
-        grid.getChildren().clear();
-        String[] days = {"一","二","三","四","五","六","日"};
-        for (int i = 0; i < 7; i++) {
-            Label l = new Label(days[i]);
-            l.setStyle("-fx-font-weight:bold;");
-            grid.add(l, i, 0);
-        }
-
+    private void buildCalendar(int year, int month) {
+        long start = System.nanoTime();
         YearMonth ym = YearMonth.of(year, month);
-        LocalDate first = ym.atDay(1);
-        int dow = first.getDayOfWeek().getValue() % 7;
+        shown = ym;
+        int dow = ym.atDay(1).getDayOfWeek().getValue() % 7;
         int total = ym.lengthOfMonth();
-        int col = dow, row = 1;
 
-        for (int d = 1; d <= total; d++) {
-            Button b = new Button(String.valueOf(d));
-            b.setPrefSize(90, 50);
-            b.setOnAction(e -> {
-                String dd = String.format("%04d-%02d-%02d",
-                    year, month, Integer.parseInt(b.getText()));
-                new DiaryView(dd, onSave).show();
-            });
-            grid.add(b, col, row);
-            col++;
-            if (col > 6) {
-                col = 0;
-                row++;
+        for (int i = 0; i < CELLS; i++) {
+            Button b = cells[i];
+            int d = i - dow + 1;
+            if (d < 1 || d > total) {
+                b.setVisible(false);
+                b.setOnAction(null);
+                continue;
             }
+            b.setVisible(true);
+            b.setText(String.valueOf(d));
+            b.setStyle("");
+            String dd = String.format("%04d-%02d-%02d", year, month, d);
+            b.setOnAction(e -> DiaryView.open(dd, () -> {
+                months.remove(ym);
+                if (ym.equals(shown)) buildCalendar(year, month);
+                if (onSave != null) onSave.run();
+            }));
+        }
+
+        showError(false);
+        summary(ym).whenCompleteAsync((map, ex) -> {
+            if (!ym.equals(shown)) return;
+            if (ex != null) {
+                // 格子保持空白，但要讓使用者知道不是「這個月沒有日記」
+                showError(true);
+                return;
+            }
+            paint(dow, map);
+            Metrics.time(Metrics.VIEW, "CalendarView.buildCalendar", start);
+        }, DiaryService.FX);
+        summary(ym.minusMonths(1));
+        summary(ym.plusMonths(1));
+    }
+
+    private void reload() {
+        YearMonth ym = YearMonth.of(yearBox.getValue(), monthBox.getValue());
+        months.remove(ym);
+        buildCalendar(ym.getYear(), ym.getMonthValue());
+    }
+
+    private void showError(boolean show) {
+        errorBar.setVisible(show);
+        errorBar.setManaged(show);
+    }
+
+    private CompletableFuture<Map<String, DiarySummary>> summary(YearMonth ym) {
+        CompletableFuture<Map<String, DiarySummary>> f = months.computeIfAbsent(ym, DiaryService::getMonthSummary);
+        // 讀取失敗的月份不留著，下次切換到這個月時重新讀取
+        f.whenComplete((map, ex) -> {
+            if (ex != null) months.remove(ym, f);
+        });
+        return f;
+    }
+
+    private void paint(int dow, Map<String, DiarySummary> map) {
+        for (DiarySummary s : map.values()) {
+            int d = LocalDate.parse(s.getDate()).getDayOfMonth();
+            int i = dow + d - 1;
+            if (i >= CELLS) continue;
+            cells[i].setText(d + "\n" + icon(s.getMood().label()) + " " + icon(s.getWeather().label())
+                + (s.hasImage() ? " 🖼" : ""));
+            cells[i].setStyle(
+                "-fx-background-color:" + MoodPalette.hex(s.getMood(), s.getWeather()) + ";" +
+                "-fx-border-color:#DDD;-fx-border-radius:4;-fx-background-radius:4;"
+            );
         }
     }
-}
\ No newline at end of file
+
+    // "😊 很棒" -> "😊"
+    private static String icon(String label) {
+        if (label == null || label.isBlank()) return "";
+        int sp = label.indexOf(' ');
+        return sp < 0 ? label : label.substring(0, sp);
+    }
+}
@@ -0,0 +1,92 @@
+package FinalProject.view;
+
+import FinalProject.dao.DiaryCache;
+import FinalProject.metrics.Histogram;
+import FinalProject.metrics.Metrics;
+import FinalProject.util.DBUtil;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.layout.*;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+/** 效能診斷視窗：每秒更新各熱路徑的耗時分布、錯誤次數、連線池與快取狀態。 */
+public class DiagnosticsView {
+    private final TableView<Histogram> table = new TableView<>();
+    private final Label poolLbl = new Label();
+    private final Label cacheLbl = new Label();
+    private final TextArea counters = new TextArea();
+
+    public void show() {
+        Stage stage = new Stage();
+        stage.setTitle("🩺 效能診斷");
+
+        table.getColumns().add(column("指標", Histogram::getName));
+        table.getColumns().add(column("標籤", h -> h.getLabel() == null ? "" : h.getLabel()));
+        table.getColumns().add(column("次數", h -> String.valueOf(h.getCount())));
+        table.getColumns().add(column("平均 ms", h -> millis(h.getMeanSeconds())));
+        table.getColumns().add(column("p50 ms", h -> millis(h.percentile(0.50))));
+        table.getColumns().add(column("p95 ms", h -> millis(h.percentile(0.95))));
+        table.getColumns().add(column("p99 ms", h -> millis(h.percentile(0.99))));
+        table.getColumns().add(column("最大 ms", h -> millis(h.getMaxSeconds())));
+        table.setPlaceholder(new Label("還沒有紀錄"));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+
+        counters.setEditable(false);
+        counters.setPrefRowCount(5);
+
+        Button copy = new Button("📋 複製 Prometheus 格式");
+        copy.setOnAction(e -> {
+            ClipboardContent c = new ClipboardContent();
+            c.putString(Metrics.scrape());
+            Clipboard.getSystemClipboard().setContent(c);
+        });
+
+        VBox root = new VBox(8, table, poolLbl, cacheLbl, new Label("錯誤與計數："), counters, copy);
+        root.setPadding(new Insets(12));
+        VBox.setVgrow(table, Priority.ALWAYS);
+
+        // 視窗開著時每秒重新讀取，數值都是直接讀計數器，不會影響正在量的操作
+        Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> update()));
+        refresh.setCycleCount(Animation.INDEFINITE);
+        update();
+        refresh.play();
+
+        stage.setScene(new Scene(root, 900, 600));
+        stage.setOnHidden(e -> refresh.stop());
+        stage.show();
+    }
+
+    private void update() {
+        table.getItems().setAll(Metrics.histograms());
+        table.refresh();
+        poolLbl.setText("🔌 連線池：" + DBUtil.getPoolStats());
+        cacheLbl.setText("🗂 快取：" + DiaryCache.getStats());
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> e : Metrics.counters().entrySet()) {
+            sb.append(e.getKey()).append(" = ").append(e.getValue()).append('\n');
+        }
+        counters.setText(sb.length() == 0 ? "（無）" : sb.toString());
+    }
+
+    private static TableColumn<Histogram, String> column(String title, Function<Histogram, String> value) {
+        TableColumn<Histogram, String> c = new TableColumn<>(title);
+        c.setCellValueFactory(cd -> new ReadOnlyStringWrapper(value.apply(cd.getValue())));
+        return c;
+    }
+
+    private static String millis(double seconds) {
+        return String.format("%.2f", seconds * 1000);
+    }
+}
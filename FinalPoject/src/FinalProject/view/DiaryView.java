@@ -1,44 +1,81 @@
 package FinalProject.view;
 
-import FinalProject.dao.DiaryDAO;
+import FinalProject.export.PdfExporter;
+import FinalProject.image.ImageService;
+import FinalProject.metrics.Metrics;
 import FinalProject.model.Diary;
+import FinalProject.model.Mood;
+import FinalProject.model.MoodPalette;
+import FinalProject.model.Weather;
+import FinalProject.service.DiaryService;
 
-import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.*;
-
+import javafx.animation.PauseTransition;
+import javafx.beans.value.ChangeListener;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;             // JavaFX Image
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
 
 import java.io.*;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 public class DiaryView {
-    private final String date;
-    private final Runnable onSaveCallback;
+    private static final int PREVIEW_WIDTH = 300;
+    private static final int PREVIEW_HEIGHT = 200;
+    // 停止輸入這麼久之後才自動儲存，連續打字只會存一次
+    private static final Duration AUTOSAVE_DELAY = Duration.millis(1500);
+    // 自動儲存的開關，之後開的日記視窗沿用同一個設定
+    private static boolean autosave = true;
+    // 日記視窗只建立一次，之後開別天的日記時換掉內容重複使用
+    private static DiaryView instance;
+
+    private String date;
+    private Runnable onSaveCallback;
     private Stage stage;
+    private Label dateLbl;
     private File selectedImageFile;
-    private ComboBox<String> moodBox;
-    private ComboBox<String> weatherBox;
+    private ComboBox<Mood> moodBox;
+    private ComboBox<Weather> weatherBox;
     private TextArea content;
     private ImageView imagePreview;
     private VBox box;
+    // 只追蹤讀取；手動儲存的完成提示與 callback 不隨換頁或關窗取消
+    private CompletableFuture<?> loading;
+    private Label status;
+
+    // 有尚未儲存的修改；edits 每次修改加一，用來判斷存完之後是否又被改過
+    private final PauseTransition debounce = new PauseTransition(AUTOSAVE_DELAY);
+    private boolean dirty;
+    private int edits;
+    private boolean filling;
 
-    public DiaryView(String date) {
-        this(date, null);
+    private record Loaded(Diary diary, File image, boolean draft) {}
+
+    private DiaryView() {
     }
-    public DiaryView(String date, Runnable onSaveCallback) {
-        this.date = date;
-        this.onSaveCallback = onSaveCallback;
+
+    /** 開啟某一天的日記；視窗已經開著時先把上一篇未儲存的修改存起來再換成這一天。 */
+    public static void open(String date, Runnable onSaveCallback) {
+        long start = System.nanoTime();
+        if (instance == null) {
+            instance = new DiaryView();
+            instance.build();
+        }
+        instance.bind(date, onSaveCallback);
+        Metrics.time(Metrics.VIEW, "DiaryView.open", start);
     }
 
-    public void show() {
+    private void build() {
         stage = new Stage();
-        stage.setTitle("📔 日記 - " + date);
 
         BorderPane root = new BorderPane();
 
@@ -47,11 +84,17 @@ public class DiaryView {
         Menu file = new Menu("📁 檔案");
         MenuItem save = new MenuItem("💾 儲存日記");
         save.setOnAction(e -> doSave());
+        CheckMenuItem auto = new CheckMenuItem("🔄 自動儲存");
+        auto.setSelected(autosave);
+        auto.setOnAction(e -> {
+            autosave = auto.isSelected();
+            if (autosave && dirty) debounce.playFromStart();
+        });
         MenuItem exp = new MenuItem("📤 匯出 PDF");
         exp.setOnAction(e -> doExportPDF());
         MenuItem close = new MenuItem("❌ 關閉");
         close.setOnAction(e -> stage.close());
-        file.getItems().addAll(save, exp, close);
+        file.getItems().addAll(save, auto, exp, close);
         mb.getMenus().addAll(file);
         root.setTop(mb);
 
@@ -59,15 +102,17 @@ public class DiaryView {
         box = new VBox(12);
         box.setPadding(new Insets(20));
 
-        Label lbl = new Label("📅 日期： " + date);
-        lbl.setStyle("-fx-font-size:18px; -fx-font-weight:bold;");
+        dateLbl = new Label();
+        dateLbl.setStyle("-fx-font-size:18px; -fx-font-weight:bold;");
 
         moodBox = new ComboBox<>();
-        moodBox.getItems().addAll("😊 很棒","🙂 普通","😀 超好","😕 難過","🤯 爆炸了");
+        moodBox.getItems().addAll(Mood.CHOICES);
+        moodBox.setConverter(labels(Mood::label));
         moodBox.setPromptText("選擇心情");
 
         weatherBox = new ComboBox<>();
-        weatherBox.getItems().addAll("☀️ 晴朗","⛅ 多雲","🌧 下雨","⛈ 雷雨","❄️ 下雪");
+        weatherBox.getItems().addAll(Weather.CHOICES);
+        weatherBox.setConverter(labels(Weather::label));
         weatherBox.setPromptText("選擇天氣");
 
         content = new TextArea();
@@ -76,8 +121,8 @@ public class DiaryView {
         content.setPrefRowCount(8);
 
         imagePreview = new ImageView();
-        imagePreview.setFitWidth(300);
-        imagePreview.setFitHeight(200);
+        imagePreview.setFitWidth(PREVIEW_WIDTH);
+        imagePreview.setFitHeight(PREVIEW_HEIGHT);
         imagePreview.setPreserveRatio(true);
 
         Button imgBtn = new Button("🖼 插入圖片");
@@ -85,81 +130,221 @@ public class DiaryView {
             File f = new FileChooser().showOpenDialog(stage);
             if (f != null) {
                 selectedImageFile = f;
-                imagePreview.setImage(new Image(f.toURI().toString()));
+                showPreview(f);
+                markDirty();
             }
         });
 
         Button saveBtn = new Button("✅ 儲存並套色");
         saveBtn.setOnAction(e -> doSave());
+        status = new Label();
+        status.setStyle("-fx-text-fill:#777;");
+
+        ChangeListener<Object> onEdit = (obs, o, n) -> markDirty();
+        moodBox.valueProperty().addListener(onEdit);
+        weatherBox.valueProperty().addListener(onEdit);
+        content.textProperty().addListener(onEdit);
+        debounce.setOnFinished(e -> flush());
 
         box.getChildren().addAll(
-            lbl,
+            dateLbl,
             new Label("心情："), moodBox,
             new Label("天氣："), weatherBox,
             new Label("內容："), content,
             imgBtn, imagePreview,
-            saveBtn
+            saveBtn, status
         );
 
         root.setCenter(new ScrollPane(box));
         Scene sc = new Scene(root, 600, 650);
         stage.setScene(sc);
-        stage.show();
+        // 視窗關掉後就不必再把結果套回畫面，但還沒存的修改要立刻存
+        stage.setOnHidden(e -> unbind());
+    }
 
-        loadFromDB();
+    private void bind(String date, Runnable onSaveCallback) {
+        if (stage.isShowing()) {
+            if (date.equals(this.date)) {
+                this.onSaveCallback = onSaveCallback;
+                stage.toFront();
+                return;
+            }
+            unbind();
+        }
+        this.date = date;
+        this.onSaveCallback = onSaveCallback;
+        // 上一篇還在進行中的儲存完成時不能把這一篇標成已儲存
+        edits++;
+        dirty = false;
+        filling = true;
+        moodBox.setValue(null);
+        weatherBox.setValue(null);
+        content.clear();
+        selectedImageFile = null;
+        imagePreview.setImage(null);
+        status.setText("");
+        stage.setTitle("📔 日記 - " + date);
+        dateLbl.setText("📅 日期： " + date);
         applyBg();
+        loadFromDB();
+        stage.show();
+        stage.toFront();
     }
 
-    private void doSave() {
-        Diary d = new Diary(
+    private void unbind() {
+        if (loading != null) loading.cancel(false);
+        debounce.stop();
+        flush();
+    }
+
+    private Diary snapshot() {
+        return new Diary(
             date,
-            moodBox.getValue(),
-            weatherBox.getValue(),
+            snapshotMood(),
+            snapshotWeather(),
             content.getText(),
             selectedImageFile==null?null:selectedImageFile.getAbsolutePath()
         );
-        DiaryDAO.saveDiary(d);
-
-        // 存 txt
-        File dir = new File("diary");
-        if (!dir.exists()) dir.mkdirs();
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(new File(dir,"Diary_"+date+".txt")))) {
-            w.write(date+"\n");
-            w.write(moodBox.getValue()+"\n");
-            w.write(weatherBox.getValue()+"\n");
-            w.write(content.getText());
-        } catch (IOException ex) {
-            ex.printStackTrace();
+    }
+
+    // 沒選的下拉選單是 null，存檔與套色都當成 UNSET
+    private Mood snapshotMood() {
+        return moodBox.getValue()==null ? Mood.UNSET : moodBox.getValue();
+    }
+
+    private Weather snapshotWeather() {
+        return weatherBox.getValue()==null ? Weather.UNSET : weatherBox.getValue();
+    }
+
+    private void markDirty() {
+        if (filling) return;
+        dirty = true;
+        edits++;
+        stage.setTitle("📔 日記 - " + date + " *");
+        debounce.playFromStart();
+    }
+
+    private void markSaved(int version) {
+        // 存檔期間又有修改的話仍然算未儲存
+        if (version != edits) return;
+        dirty = false;
+        stage.setTitle("📔 日記 - " + date);
+    }
+
+    /** 停止輸入一段時間後（或關閉視窗時）在背景儲存，不會打斷輸入。 */
+    private void flush() {
+        if (!dirty) return;
+        Diary d = snapshot();
+        int version = edits;
+        Runnable callback = onSaveCallback;
+        if (!autosave) {
+            DiaryService.saveDraft(d);
+            return;
         }
+        DiaryService.autosave(d).thenAcceptAsync(r -> {
+            // 視窗已經換成別天的話就不更新狀態列
+            boolean current = d.getDate().equals(date);
+            if (r == DiaryService.SaveResult.FAILED) {
+                if (current) status.setText("⚠️ 無法自動儲存到資料庫，草稿已保留在本機");
+                return;
+            }
+            markSaved(version);
+            if (current) status.setText("✔ 已自動儲存 " + LocalTime.now().truncatedTo(ChronoUnit.SECONDS));
+            if (r == DiaryService.SaveResult.SAVED && callback!=null) callback.run();
+        }, DiaryService.FX);
+    }
 
-        new Alert(Alert.AlertType.INFORMATION, "✅ 已儲存！").showAndWait();
+    private void doSave() {
+        // 讀取完成前畫面是空的，存下去會蓋掉資料庫裡的內容
+        if (filling) return;
+        Diary d = snapshot();
+        int version = edits;
+        Runnable callback = onSaveCallback;
+        debounce.stop();
         applyBg();
-        if (onSaveCallback!=null) onSaveCallback.run();
+        // 儲存在背景進行，完成後才提示並通知列表更新
+        DiaryService.saveDiary(d).thenAcceptAsync(ok -> {
+            if (ok) {
+                markSaved(version);
+                new Alert(Alert.AlertType.INFORMATION, "✅ 已儲存！").showAndWait();
+            } else {
+                new Alert(Alert.AlertType.ERROR, "❌ 無法寫入資料庫，已保留本機備份").showAndWait();
+            }
+            if (callback!=null) callback.run();
+        }, DiaryService.FX);
     }
 
     private void loadFromDB() {
-        Diary d = DiaryDAO.loadDiary(date);
-        if (d!=null) {
-            moodBox.setValue(d.getMood());
-            weatherBox.setValue(d.getWeather());
-            content.setText(d.getContent());
-            if (d.getImagePath()!=null) {
-                File f = new File(d.getImagePath());
-                if (f.exists()) {
-                    selectedImageFile = f;
-                    imagePreview.setImage(new Image(f.toURI().toString()));
+        setEditable(false);
+        // 讀取完成前的變動不算修改，避免用空白內容蓋掉資料庫
+        filling = true;
+        loading = DiaryService.loadDiary(date)
+            .thenCompose(saved -> DiaryService.loadDraft(date).thenApply(draft -> {
+                // 有比資料庫新的草稿（上次沒存到就關掉或當掉）時以草稿為準
+                Diary d = draft!=null ? draft : saved;
+                return new Loaded(d, imageOf(d), draft!=null);
+            }))
+            .whenCompleteAsync((r, ex) -> {
+                if (ex != null) {
+                    loadFromJournal();
+                    return;
                 }
-            }
+                fill(r);
+                filling = false;
+                if (r.draft()) {
+                    status.setText("📝 已還原上次尚未儲存的草稿");
+                    markDirty();
+                }
+                setEditable(true);
+            }, DiaryService.FX);
+    }
+
+    // 讀不到資料庫時顯示本機日記檔裡最後寫入的版本，但維持唯讀：
+    // 日記檔可能比資料庫舊，自動儲存不能拿它蓋過去
+    private void loadFromJournal() {
+        status.setText("⚠️ 無法讀取這天的日記，請稍後重新開啟");
+        loading = DiaryService.readJournal(date)
+            .thenApply(d -> new Loaded(d, imageOf(d), false))
+            .thenAcceptAsync(r -> {
+                if (r.diary() == null) return;
+                fill(r);
+                status.setText("⚠️ 無法連線資料庫，顯示本機日記檔中的版本（唯讀），請稍後重新開啟");
+            }, DiaryService.FX);
+    }
+
+    // 圖片檔是否存在在背景檢查
+    private static File imageOf(Diary d) {
+        File img = d==null || d.getImagePath()==null ? null : new File(d.getImagePath());
+        return img!=null && img.exists() ? img : null;
+    }
+
+    private void fill(Loaded r) {
+        Diary d = r.diary();
+        if (d==null) return;
+        moodBox.setValue(d.getMood()==Mood.UNSET?null:d.getMood());
+        weatherBox.setValue(d.getWeather()==Weather.UNSET?null:d.getWeather());
+        content.setText(d.getContent());
+        if (r.image()!=null) {
+            selectedImageFile = r.image();
+            showPreview(selectedImageFile);
         }
+        applyBg();
+    }
+
+    private void setEditable(boolean editable) {
+        content.setDisable(!editable);
+        moodBox.setDisable(!editable);
+        weatherBox.setDisable(!editable);
+    }
+
+    private void showPreview(File f) {
+        ImageService.load(f, PREVIEW_WIDTH, PREVIEW_HEIGHT).thenAcceptAsync(img -> {
+            if (f.equals(selectedImageFile)) imagePreview.setImage(img);
+        }, DiaryService.FX);
     }
 
     private void applyBg() {
-        String m=moodBox.getValue(), w=weatherBox.getValue(), c="#FFF";
-        if ("😊 很棒".equals(m)&&"☀️ 晴朗".equals(w))      c="#FFFDE7";
-        else if ("🙂 普通".equals(m)&&"⛅ 多雲".equals(w))  c="#E8F0FE";
-        else if ("😀 超好".equals(m))                        c="#E0F7FA";
-        else if ("😕 難過".equals(m))                       c="#F3E5F5";
-        else if ("🤯 爆炸了".equals(m))                     c="#F8D7DA";
+        String c = MoodPalette.hex(snapshotMood(), snapshotWeather());
         box.setStyle(
             "-fx-background-color:"+c+";" +
             "-fx-border-color:#DDD;-fx-border-radius:6;-fx-background-radius:6;"
@@ -172,67 +357,30 @@ public class DiaryView {
         File out = fc.showSaveDialog(stage);
         if (out==null) return;
 
-        final BaseColor bg = switch(moodBox.getValue()+"|"+weatherBox.getValue()) {
-            case "😊 很棒|☀️ 晴朗" -> new BaseColor(255,248,225);
-            case "🙂 普通|⛅ 多雲" -> new BaseColor(232,240,254);
-            case "😀 超好|☀️ 晴朗" -> new BaseColor(255,253,231);
-            case "😕 難過|🌧 下雨" -> new BaseColor(236,240,241);
-            case "🤯 爆炸了|⛈ 雷雨" -> new BaseColor(255,235,238);
-            default -> BaseColor.WHITE;
-        };
+        Diary d = snapshot();
+        PdfExporter.exportDiary(d, out).whenCompleteAsync((v, ex) -> {
+            if (ex==null) {
+                new Alert(Alert.AlertType.INFORMATION, "✅ PDF 匯出成功！").showAndWait();
+            } else {
+                Throwable cause = ex instanceof CompletionException && ex.getCause()!=null ? ex.getCause() : ex;
+                cause.printStackTrace();
+                new Alert(Alert.AlertType.ERROR, "❌ 匯出失敗："+cause.getMessage()).showAndWait();
+            }
+        }, DiaryService.FX);
+    }
 
-        try {
-            Document doc = new Document(PageSize.A4,40,40,60,60);
-            PdfWriter writer = PdfWriter.getInstance(doc,new FileOutputStream(out));
-            writer.setPageEvent(new PdfPageEventHelper(){
-                @Override
-                public void onEndPage(PdfWriter w, Document d) {
-                    PdfContentByte cb = w.getDirectContentUnder();
-                    Rectangle r = d.getPageSize();
-                    cb.saveState();
-                    cb.setColorFill(bg);
-                    cb.rectangle(0,0,r.getWidth(),r.getHeight());
-                    cb.fill();
-                    cb.restoreState();
-                }
-            });
-            doc.open();
-
-            // Title
-            Font h1 = new Font(Font.FontFamily.HELVETICA,20,Font.BOLD,BaseColor.DARK_GRAY);
-            Paragraph t = new Paragraph("📔 我的日記本",h1);
-            t.setAlignment(Element.ALIGN_CENTER);
-            doc.add(t);
-            doc.add(Chunk.NEWLINE);
-
-            // Body
-            BaseFont bf = BaseFont.createFont(
-                "NotoSansCJKtc-Regular.otf", BaseFont.IDENTITY_H, BaseFont.EMBEDDED
-            );
-            Font f = new Font(bf,14,Font.NORMAL,BaseColor.BLACK);
-            Paragraph p = new Paragraph(
-                "📅 日期： "+date+"\n"+
-                "😊 心情： "+(moodBox.getValue()==null?"(未選)":moodBox.getValue())+"\n"+
-                "🌦 天氣： "+(weatherBox.getValue()==null?"(未選)":weatherBox.getValue())+"\n\n"+
-                content.getText(), f
-            );
-            p.setAlignment(Element.ALIGN_LEFT);
-            doc.add(p);
-
-            // Image
-            if (selectedImageFile!=null && selectedImageFile.exists()) {
-                com.itextpdf.text.Image img =
-                    com.itextpdf.text.Image.getInstance(selectedImageFile.getAbsolutePath());
-                img.scaleToFit(300,200);
-                img.setAlignment(Element.ALIGN_CENTER);
-                doc.add(img);
+    /** 下拉選單顯示標籤文字，選到的值仍然是 enum。 */
+    private static <T> StringConverter<T> labels(Function<T, String> label) {
+        return new StringConverter<>() {
+            @Override
+            public String toString(T value) {
+                return value==null ? "" : label.apply(value);
             }
 
-            doc.close();
-            new Alert(Alert.AlertType.INFORMATION, "✅ PDF 匯出成功！").showAndWait();
-        } catch(Exception ex) {
-            ex.printStackTrace();
-            new Alert(Alert.AlertType.ERROR, "❌ 匯出失敗："+ex.getMessage()).showAndWait();
-        }
+            @Override
+            public T fromString(String text) {
+                return null;
+            }
+        };
     }
-}
\ No newline at end of file
+}
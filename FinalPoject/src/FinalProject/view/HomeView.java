@@ -1,61 +1,291 @@
 package FinalProject.view;
 
-import FinalProject.dao.DiaryDAO;
-import FinalProject.model.Diary;
+import FinalProject.export.PdfExporter;
+import FinalProject.metrics.Metrics;
+import FinalProject.model.DiarySummary;
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+import FinalProject.search.SearchHit;
+import FinalProject.service.DiaryService;
 
+import java.io.File;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 public class HomeView {
-    private VBox diaryCardPanel;
+    private static final int PAGE_SIZE = 50;
+    // 捲到距離底部這麼多筆以內就先載入下一頁
+    private static final int PREFETCH_DISTANCE = 10;
+    private static final int SEARCH_LIMIT = 100;
+    private static final String ALL = "全部";
+    private static final String EXPORT_MONTH = "本月";
+    private static final String EXPORT_YEAR = "今年";
+    private static final String EXPORT_ALL = "全部";
+
+    private final ObservableList<DiarySummary> items = FXCollections.observableArrayList();
+    private final ListView<DiarySummary> diaryList = new ListView<>(items);
+    private final long created = System.nanoTime();
+    // 讀取失敗時顯示在列表下方，按重試再讀一次；列表原本的內容保持不變
+    private final Label loadError = new Label();
+    private final Button retryBtn = new Button("🔄 重試");
+    private final HBox errorBar = new HBox(8, loadError, retryBtn);
+    // 第一頁在建立物件時就開始讀，和 JavaFX 啟動、建立畫面同時進行
+    private final CompletableFuture<List<DiarySummary>> firstPage = DiaryService.getDiariesBefore(null, PAGE_SIZE);
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+    private boolean hasMore = true;
+    private CompletableFuture<?> pending;
+    private CompletableFuture<?> searching;
+
+    /** 第一頁日記顯示在畫面上時完成。 */
+    public CompletableFuture<Void> loaded() {
+        return loaded.copy();
+    }
 
     public void show() {
         Stage stage = new Stage();
         stage.setTitle("📔 我的日記本");
 
         BorderPane root = new BorderPane();
-        diaryCardPanel = new VBox(8);
-        diaryCardPanel.setPadding(new Insets(12));
-        root.setCenter(new ScrollPane(diaryCardPanel));
+        diaryList.setCellFactory(lv -> new DiaryCell());
+        // 資料還沒回來前先顯示空的框架
+        diaryList.setPlaceholder(new Label("⏳ 載入中..."));
+        root.setCenter(diaryList);
+
+        // 搜尋列
+        ListView<SearchHit> resultList = new ListView<>();
+        resultList.setCellFactory(lv -> new SearchCell());
+        resultList.setPlaceholder(new Label("找不到符合的日記"));
+        TextField searchField = new TextField();
+        searchField.setPromptText("搜尋日記內容...");
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+        ComboBox<String> moodFilter = new ComboBox<>();
+        moodFilter.getItems().add(ALL);
+        for (Mood m : Mood.CHOICES) moodFilter.getItems().add(m.label());
+        moodFilter.setValue(ALL);
+        ComboBox<String> weatherFilter = new ComboBox<>();
+        weatherFilter.getItems().add(ALL);
+        for (Weather w : Weather.CHOICES) weatherFilter.getItems().add(w.label());
+        weatherFilter.setValue(ALL);
+        Button searchBtn = new Button("🔍 搜尋");
+        Button clearBtn = new Button("✖");
+
+        Runnable doSearch = () -> {
+            String q = searchField.getText().trim();
+            int moodMask = ALL.equals(moodFilter.getValue()) ? 0 : Mood.fromLabel(moodFilter.getValue()).bit();
+            int weatherMask = ALL.equals(weatherFilter.getValue()) ? 0 : Weather.fromLabel(weatherFilter.getValue()).bit();
+            if (searching != null) searching.cancel(false);
+            if (q.isEmpty() && moodMask == 0 && weatherMask == 0) {
+                root.setCenter(diaryList);
+                return;
+            }
+            resultList.setPlaceholder(new Label("搜尋中..."));
+            root.setCenter(resultList);
+            // 沒有關鍵字時只依心情、天氣篩選，由資料庫的索引查出最新的幾篇
+            CompletableFuture<List<SearchHit>> found = q.isEmpty()
+                ? DiaryService.filter(moodMask, weatherMask, SEARCH_LIMIT).thenApply(list -> list.stream()
+                    .map(s -> new SearchHit(s.getDate(), s.getMood(), s.getWeather(), 0, ""))
+                    .toList())
+                : DiaryService.search(q, moodMask, weatherMask, SEARCH_LIMIT);
+            searching = found
+                .whenCompleteAsync((hits, ex) -> {
+                    if (ex != null) {
+                        resultList.setPlaceholder(new Label("⚠️ 無法讀取資料庫，請稍後再試"));
+                        resultList.getItems().clear();
+                        return;
+                    }
+                    resultList.setPlaceholder(new Label("找不到符合的日記"));
+                    resultList.getItems().setAll(hits);
+                }, DiaryService.FX);
+        };
+        searchField.setOnAction(e -> doSearch.run());
+        searchBtn.setOnAction(e -> doSearch.run());
+        moodFilter.setOnAction(e -> doSearch.run());
+        weatherFilter.setOnAction(e -> doSearch.run());
+        clearBtn.setOnAction(e -> {
+            searchField.clear();
+            doSearch.run();
+        });
+        HBox searchBar = new HBox(8, searchField, moodFilter, weatherFilter, searchBtn, clearBtn);
+        searchBar.setPadding(new Insets(8, 12, 8, 12));
 
         // 上方選單
         MenuBar mb = new MenuBar();
         Menu fileMenu = new Menu("📁 檔案");
+        MenuItem export = new MenuItem("📄 匯出 PDF");
+        export.setOnAction(e -> exportRange(stage));
+        MenuItem diagnostics = new MenuItem("🩺 效能診斷");
+        diagnostics.setOnAction(e -> new DiagnosticsView().show());
         MenuItem exit = new MenuItem("❌ 離開");
         exit.setOnAction(e -> stage.close());
-        fileMenu.getItems().add(exit);
+        fileMenu.getItems().addAll(export, diagnostics, exit);
 
         Menu diaryMenu = new Menu("📖 日記");
         MenuItem addToday = new MenuItem("🆕 寫今天日記");
         addToday.setOnAction(e -> {
             String today = LocalDate.now().toString();
-            new DiaryView(today, this::refresh).show();
+            DiaryView.open(today, this::refresh);
         });
         MenuItem calendar = new MenuItem("📅 日曆模式");
-        calendar.setOnAction(e -> new CalendarView(this::refresh).show());
+        calendar.setOnAction(e -> CalendarView.open(this::refresh));
 
-        diaryMenu.getItems().addAll(addToday, calendar);
+        MenuItem stats = new MenuItem("📊 心情統計");
+        stats.setOnAction(e -> new StatsView().show());
+
+        diaryMenu.getItems().addAll(addToday, calendar, stats);
         mb.getMenus().addAll(fileMenu, diaryMenu);
-        root.setTop(mb);
+        root.setTop(new VBox(mb, searchBar));
+
+        errorBar.setPadding(new Insets(8, 12, 8, 12));
+        errorBar.setStyle("-fx-background-color:#FFF3CD;");
+        hideError();
+        root.setBottom(errorBar);
 
-        refresh();
+        pending = firstPage.whenCompleteAsync((list, ex) -> {
+            if (ex != null) {
+                loadFailed(this::refresh);
+                return;
+            }
+            applyPage(list, PAGE_SIZE);
+            Metrics.time(Metrics.VIEW, "HomeView.firstPage", created);
+        }, DiaryService.FX);
 
         Scene scene = new Scene(root, 800, 600);
         stage.setScene(scene);
         stage.show();
     }
 
+    /** 選擇期間後把該期間的日記匯出成一個 PDF。 */
+    private void exportRange(Stage stage) {
+        ChoiceDialog<String> dlg = new ChoiceDialog<>(EXPORT_MONTH, EXPORT_MONTH, EXPORT_YEAR, EXPORT_ALL);
+        dlg.setTitle("📄 匯出 PDF");
+        dlg.setHeaderText("要匯出哪段期間的日記？");
+        String range = dlg.showAndWait().orElse(null);
+        if (range == null) return;
+
+        LocalDate today = LocalDate.now();
+        LocalDate from = switch (range) {
+            case EXPORT_MONTH -> today.withDayOfMonth(1);
+            case EXPORT_YEAR -> today.withDayOfYear(1);
+            default -> null;
+        };
+        LocalDate to = from == null ? null : range.equals(EXPORT_MONTH)
+            ? from.plusMonths(1).minusDays(1)
+            : from.plusYears(1).minusDays(1);
+
+        FileChooser fc = new FileChooser();
+        fc.setInitialFileName(switch (range) {
+            case EXPORT_MONTH -> "Diary_" + YearMonth.from(today) + ".pdf";
+            case EXPORT_YEAR -> "Diary_" + today.getYear() + ".pdf";
+            default -> "Diary_all.pdf";
+        });
+        File out = fc.showSaveDialog(stage);
+        if (out == null) return;
+
+        PdfExporter.exportRange(from, to, out).whenCompleteAsync((count, ex) -> {
+            if (ex == null) {
+                new Alert(Alert.AlertType.INFORMATION, "✅ 已匯出 " + count + " 篇日記！").showAndWait();
+            } else {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                cause.printStackTrace();
+                new Alert(Alert.AlertType.ERROR, "❌ 匯出失敗：" + cause.getMessage()).showAndWait();
+            }
+        }, DiaryService.FX);
+    }
+
+    /** 重新讀取目前已顯示的範圍，只更新有變動的項目。 */
     private void refresh() {
-        diaryCardPanel.getChildren().clear();
-        List<Diary> list = DiaryDAO.getAllDiaries();
-        for (Diary d : list) {
-            VBox card = new VBox(6);
+        long start = System.nanoTime();
+        if (pending != null) pending.cancel(false);
+        int limit = Math.max(PAGE_SIZE, items.size());
+        pending = DiaryService.getDiariesBefore(null, limit)
+            .whenCompleteAsync((list, ex) -> {
+                if (ex != null) {
+                    loadFailed(this::refresh);
+                    return;
+                }
+                applyPage(list, limit);
+                Metrics.time(Metrics.VIEW, "HomeView.refresh", start);
+            }, DiaryService.FX);
+    }
+
+    private void applyPage(List<DiarySummary> list, int limit) {
+        applyDiff(list);
+        hasMore = list.size() == limit;
+        pending = null;
+        hideError();
+        diaryList.setPlaceholder(new Label("還沒有日記"));
+        loaded.complete(null);
+    }
+
+    // 讀取失敗不代表沒有日記：列表保持原樣，顯示錯誤並讓使用者重試
+    private void loadFailed(Runnable retry) {
+        pending = null;
+        diaryList.setPlaceholder(new Label("⚠️ 無法讀取日記"));
+        loadError.setText("⚠️ 無法讀取資料庫，日記可能沒有全部顯示");
+        retryBtn.setOnAction(e -> {
+            hideError();
+            retry.run();
+        });
+        errorBar.setVisible(true);
+        errorBar.setManaged(true);
+    }
+
+    private void hideError() {
+        errorBar.setVisible(false);
+        errorBar.setManaged(false);
+    }
+
+    private void loadNextPage() {
+        if (pending != null || !hasMore) return;
+        String oldest = items.isEmpty() ? null : items.get(items.size() - 1).getDate();
+        pending = DiaryService.getDiariesBefore(oldest, PAGE_SIZE)
+            .whenCompleteAsync((page, ex) -> {
+                if (ex != null) {
+                    loadFailed(this::loadNextPage);
+                    return;
+                }
+                items.addAll(page);
+                hasMore = page.size() == PAGE_SIZE;
+                pending = null;
+                hideError();
+            }, DiaryService.FX);
+    }
+
+    // 兩邊都依日期由新到舊排列，逐一比對日期合併
+    private void applyDiff(List<DiarySummary> fresh) {
+        int i = 0;
+        for (DiarySummary s : fresh) {
+            while (i < items.size() && items.get(i).getDate().compareTo(s.getDate()) > 0) {
+                items.remove(i);
+            }
+            if (i < items.size() && items.get(i).getDate().equals(s.getDate())) {
+                if (!items.get(i).equals(s)) items.set(i, s);
+            } else {
+                items.add(i, s);
+            }
+            i++;
+        }
+        if (i < items.size()) items.remove(i, items.size());
+    }
+
+    private class DiaryCell extends ListCell<DiarySummary> {
+        private final VBox card = new VBox(6);
+        private final Label lbl = new Label();
+        private final Button openBtn = new Button("開啟日記");
+
+        DiaryCell() {
             card.setPadding(new Insets(8));
             card.setStyle(
                 "-fx-background-color:#FFFFFF;" +
@@ -63,15 +293,59 @@ public class HomeView {
                 "-fx-border-radius:4;" +
                 "-fx-background-radius:4;"
             );
-
-            Label lbl = new Label("📅 " + d.getDate());
             lbl.setStyle("-fx-font-size:14px; -fx-font-weight:bold;");
+            openBtn.setOnAction(e -> {
+                if (getItem() != null) DiaryView.open(getItem().getDate(), HomeView.this::refresh);
+            });
+            card.getChildren().addAll(lbl, openBtn);
+        }
+
+        @Override
+        protected void updateItem(DiarySummary d, boolean empty) {
+            super.updateItem(d, empty);
+            if (empty || d == null) {
+                setGraphic(null);
+                return;
+            }
+            lbl.setText("📅 " + d.getDate());
+            setGraphic(card);
+            if (getIndex() >= items.size() - PREFETCH_DISTANCE) loadNextPage();
+        }
+    }
 
-            Button openBtn = new Button("開啟日記");
-            openBtn.setOnAction(e -> new DiaryView(d.getDate(), this::refresh).show());
+    private class SearchCell extends ListCell<SearchHit> {
+        private final VBox card = new VBox(4);
+        private final Label title = new Label();
+        private final Label snippet = new Label();
+        private final Button openBtn = new Button("開啟日記");
 
-            card.getChildren().addAll(lbl, openBtn);
-            diaryCardPanel.getChildren().add(card);
+        SearchCell() {
+            card.setPadding(new Insets(8));
+            card.setStyle(
+                "-fx-background-color:#FFFFFF;" +
+                "-fx-border-color:#DDD;" +
+                "-fx-border-radius:4;" +
+                "-fx-background-radius:4;"
+            );
+            title.setStyle("-fx-font-size:14px; -fx-font-weight:bold;");
+            snippet.setWrapText(true);
+            openBtn.setOnAction(e -> {
+                if (getItem() != null) DiaryView.open(getItem().date(), HomeView.this::refresh);
+            });
+            card.getChildren().addAll(title, snippet, openBtn);
+        }
+
+        @Override
+        protected void updateItem(SearchHit h, boolean empty) {
+            super.updateItem(h, empty);
+            if (empty || h == null) {
+                setGraphic(null);
+                return;
+            }
+            title.setText("📅 " + h.date() + "  " + (h.mood().label() == null ? "" : h.mood().label())
+                + "  " + (h.weather().label() == null ? "" : h.weather().label()));
+            snippet.setText(h.snippet());
+            setGraphic(card);
         }
     }
-}
\ No newline at end of file
+}
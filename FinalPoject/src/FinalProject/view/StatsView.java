@@ -0,0 +1,179 @@
+package FinalProject.view;
+
+import FinalProject.model.Mood;
+import FinalProject.model.Weather;
+import FinalProject.service.DiaryService;
+import FinalProject.stats.MonthStats;
+import FinalProject.stats.StatsSnapshot;
+import FinalProject.stats.Streak;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.chart.*;
+import javafx.scene.control.*;
+import javafx.scene.layout.*;
+import javafx.stage.Stage;
+
+/** 心情與天氣的統計圖表，資料來自預先彙總好的每月計數。 */
+public class StatsView {
+    private static final String ALL = "全部";
+    /** 沒有選心情或天氣時顯示的名稱。 */
+    private static final String UNSET = "(未選)";
+
+    private StatsSnapshot stats;
+    private CompletableFuture<?> pending;
+
+    private final ComboBox<String> yearBox = new ComboBox<>();
+    private final Label totalLbl = new Label();
+    private final Label longestLbl = new Label();
+    private final Label currentLbl = new Label();
+    private final StackedBarChart<String, Number> moodChart =
+        new StackedBarChart<>(new CategoryAxis(), new NumberAxis());
+    private final PieChart weatherChart = new PieChart();
+    private final GridPane table = new GridPane();
+
+    public void show() {
+        Stage stage = new Stage();
+        stage.setTitle("📊 心情統計");
+
+        yearBox.getItems().add(ALL);
+        yearBox.setValue(ALL);
+        yearBox.setOnAction(e -> render());
+        Button rebuild = new Button("🔄 重新計算");
+        rebuild.setOnAction(e -> load(DiaryService.rebuildStats()));
+
+        HBox top = new HBox(10, new Label("期間："), yearBox, rebuild);
+        top.setPadding(new Insets(12));
+
+        HBox numbers = new HBox(24, totalLbl, longestLbl, currentLbl);
+        numbers.setPadding(new Insets(0, 12, 0, 12));
+        for (Label l : List.of(totalLbl, longestLbl, currentLbl)) {
+            l.setStyle("-fx-font-size:14px; -fx-font-weight:bold;");
+        }
+
+        moodChart.setTitle("每月心情");
+        moodChart.setAnimated(false);
+        weatherChart.setTitle("天氣");
+        weatherChart.setAnimated(false);
+        table.setHgap(12);
+        table.setVgap(4);
+        table.setPadding(new Insets(12));
+
+        HBox charts = new HBox(8, weatherChart, new VBox(6, new Label("心情 × 天氣"), table));
+        VBox root = new VBox(6, top, numbers, moodChart, charts);
+        VBox.setVgrow(moodChart, Priority.ALWAYS);
+
+        Scene scene = new Scene(new ScrollPane(root), 900, 700);
+        stage.setScene(scene);
+        stage.setOnHidden(e -> {
+            if (pending != null) pending.cancel(false);
+        });
+        stage.show();
+
+        totalLbl.setText("統計中...");
+        load(DiaryService.getStats());
+    }
+
+    private void load(CompletableFuture<StatsSnapshot> f) {
+        if (pending != null) pending.cancel(false);
+        pending = f.whenCompleteAsync((s, ex) -> {
+            if (ex != null) {
+                totalLbl.setText("⚠️ 無法讀取統計，請按重新計算再試一次");
+                return;
+            }
+            stats = s;
+            String selected = yearBox.getValue();
+            TreeSet<String> years = new TreeSet<>();
+            for (MonthStats m : s.months()) years.add(String.valueOf(m.month().getYear()));
+            yearBox.getItems().setAll(ALL);
+            yearBox.getItems().addAll(years.descendingSet());
+            yearBox.setValue(yearBox.getItems().contains(selected) ? selected : ALL);
+            render();
+        }, DiaryService.FX);
+    }
+
+    private void render() {
+        if (stats == null || yearBox.getValue() == null) return;
+        String year = yearBox.getValue();
+        List<MonthStats> months = new ArrayList<>();
+        for (MonthStats m : stats.months()) {
+            if (ALL.equals(year) || String.valueOf(m.month().getYear()).equals(year)) months.add(m);
+        }
+
+        int total = 0;
+        for (MonthStats m : months) total += m.total();
+        totalLbl.setText("📔 共 " + total + " 篇");
+        longestLbl.setText("🏆 最長連續 " + describe(stats.longest()));
+        currentLbl.setText("🔥 目前連續 " + describe(stats.current()));
+
+        // 選「全部」時以年為單位，其他以月為單位
+        Map<String, Map<Mood, Integer>> moodsByBar = new LinkedHashMap<>();
+        for (MonthStats m : months) {
+            String bar = ALL.equals(year) ? String.valueOf(m.month().getYear()) : m.month().toString();
+            Map<Mood, Integer> sums = moodsByBar.computeIfAbsent(bar, k -> new EnumMap<>(Mood.class));
+            m.moods().forEach((mood, n) -> sums.merge(mood, n, Integer::sum));
+        }
+        List<Mood> moods = withUnsetLast(Mood.CHOICES, Mood.UNSET);
+        moodChart.getData().clear();
+        for (Mood mood : moods) {
+            XYChart.Series<String, Number> series = new XYChart.Series<>();
+            series.setName(label(mood));
+            moodsByBar.forEach((bar, sums) -> series.getData().add(new XYChart.Data<>(bar, sums.getOrDefault(mood, 0))));
+            if (series.getData().stream().anyMatch(d -> d.getYValue().intValue() > 0)) {
+                moodChart.getData().add(series);
+            }
+        }
+
+        Map<Weather, Map<Mood, Integer>> moodByWeather = new EnumMap<>(Weather.class);
+        for (MonthStats m : months) {
+            m.moodByWeather().forEach((w, byMood) -> {
+                Map<Mood, Integer> sums = moodByWeather.computeIfAbsent(w, k -> new EnumMap<>(Mood.class));
+                byMood.forEach((mood, n) -> sums.merge(mood, n, Integer::sum));
+            });
+        }
+        List<Weather> weathers = withUnsetLast(Weather.CHOICES, Weather.UNSET);
+        weatherChart.getData().clear();
+        for (Weather w : weathers) {
+            int n = moodByWeather.getOrDefault(w, Map.of()).values().stream().mapToInt(Integer::intValue).sum();
+            if (n > 0) weatherChart.getData().add(new PieChart.Data(label(w) + " (" + n + ")", n));
+        }
+
+        table.getChildren().clear();
+        for (int c = 0; c < weathers.size(); c++) table.add(new Label(label(weathers.get(c))), c + 1, 0);
+        for (int r = 0; r < moods.size(); r++) {
+            table.add(new Label(label(moods.get(r))), 0, r + 1);
+            for (int c = 0; c < weathers.size(); c++) {
+                int n = moodByWeather.getOrDefault(weathers.get(c), Map.of()).getOrDefault(moods.get(r), 0);
+                table.add(new Label(String.valueOf(n)), c + 1, r + 1);
+            }
+        }
+    }
+
+    // 可以選的項目依畫面上的順序，(未選) 放最後
+    private static <T> List<T> withUnsetLast(List<T> choices, T unset) {
+        List<T> list = new ArrayList<>(choices);
+        list.add(unset);
+        return list;
+    }
+
+    private static String label(Mood m) {
+        return m == Mood.UNSET ? UNSET : m.label();
+    }
+
+    private static String label(Weather w) {
+        return w == Weather.UNSET ? UNSET : w.label();
+    }
+
+    private static String describe(Streak s) {
+        if (s.days() == 0) return "0 天";
+        return s.days() + " 天（" + s.from() + " ~ " + s.to() + "）";
+    }
+}
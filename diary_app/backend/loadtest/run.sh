@@ -0,0 +1,39 @@
+#!/usr/bin/env bash
+# 比較 platform thread 與 virtual thread：各以 loadtest profile（H2）啟動一次後端，跑同樣的壓力測試；
+# 最後關掉 JWT 與使用者快取再跑一次 me，和前面的 me 比較每個請求認證的成本。
+# 需要 JDK 21。可調整：CLIENTS（預設 2000）、DURATION（秒，預設 30）、SCENARIOS（預設 list,save,upload,me）
+set -euo pipefail
+cd "$(dirname "$0")"
+
+CLIENTS=${CLIENTS:-2000}
+DURATION=${DURATION:-30}
+SCENARIOS=${SCENARIOS:-list,save,upload,me}
+PORT=${PORT:-18080}
+
+(cd .. && mvn -B -q -Pjava21 package -DskipTests)
+mvn -B -q package
+rm -f target/results.csv
+
+for mode in platform virtual no-auth-cache; do
+    args=(--spring.profiles.active=loadtest --server.port=$PORT)
+    scenarios=$SCENARIOS
+    case $mode in
+        virtual) args[0]=--spring.profiles.active=loadtest,virtual ;;
+        no-auth-cache) args+=(--jwt.token-cache-size=0 --jwt.principal-cache-size=0); scenarios=me ;;
+    esac
+    rm -rf target/images
+    IMAGE_DIR=target/images java -jar ../target/diary-backend-1.0.0.jar "${args[@]}" \
+        > target/backend-$mode.log 2>&1 &
+    pid=$!
+    trap 'kill $pid 2>/dev/null || true' EXIT
+    until curl -s -o /dev/null "http://localhost:$PORT/api/diaries"; do sleep 1; done
+
+    java -jar target/diary-loadtest.jar url=http://localhost:$PORT/api label=$mode \
+        clients=$CLIENTS seconds=$DURATION scenarios=$scenarios out=target/results.csv
+
+    kill $pid
+    wait $pid || true
+done
+
+echo
+column -s, -t target/results.csv 2>/dev/null || cat target/results.csv
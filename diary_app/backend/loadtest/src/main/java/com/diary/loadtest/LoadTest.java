@@ -0,0 +1,290 @@
+package com.diary.loadtest;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 後端壓力測試：clients 個用戶端（各自一條 virtual thread）不間斷地送出請求，
+ * 每個情境先暖身再量測，輸出吞吐量與延遲分布。
+ * <p>
+ * 用法：java -jar target/diary-loadtest.jar [key=value ...]
+ * <ul>
+ *   <li>url：後端位址，預設 http://localhost:8080/api</li>
+ *   <li>user / password：登入帳號（/auth/login 取得 token 後所有請求共用），預設 loadtest / loadtest</li>
+ *   <li>clients：同時連線的用戶端數，預設 2000</li>
+ *   <li>seconds / warmup：每個情境量測與暖身的秒數，預設 30 / 5</li>
+ *   <li>scenarios：以逗號分隔（list、save、upload、me），預設 list,save,upload,me</li>
+ *   <li>label：結果中標示這次的模式（例如 platform、virtual）</li>
+ *   <li>out：結果附加到這個 CSV 檔</li>
+ * </ul>
+ */
+public class LoadTest {
+    private static final String CSV_HEADER = "mode,scenario,clients,requests,errors,req_per_sec,p50_ms,p95_ms,p99_ms,max_ms";
+    private static final int SEED_ENTRIES = 1000;
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("\"id\":\"([^\"]+)\"");
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+
+    private final HttpClient client;
+    private final String url;
+    private String auth;
+    private byte[] image;
+
+    private LoadTest(String url) {
+        this.url = url;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /** 一次操作（可能包含多個請求），回傳最後一個請求的 HTTP 狀態碼。 */
+    private interface Scenario {
+        int run(SplittableRandom random) throws IOException, InterruptedException;
+    }
+
+    private record Result(String scenario, long requests, long errors, double seconds, long[] latencies) {
+        double throughput() {
+            return requests / seconds;
+        }
+
+        double percentile(double p) {
+            if (latencies.length == 0) return 0;
+            int i = (int) Math.ceil(p * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(i, latencies.length - 1))] / 1e6;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq < 0) {
+                System.err.println("參數格式為 key=value：" + a);
+                System.exit(2);
+            }
+            opts.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+        LoadTest test = new LoadTest(opts.getOrDefault("url", "http://localhost:8080/api"));
+        int clients = Integer.parseInt(opts.getOrDefault("clients", "2000"));
+        int seconds = Integer.parseInt(opts.getOrDefault("seconds", "30"));
+        int warmup = Integer.parseInt(opts.getOrDefault("warmup", "5"));
+        String label = opts.getOrDefault("label", "-");
+        String out = opts.get("out");
+
+        test.login(opts.getOrDefault("user", "loadtest"), opts.getOrDefault("password", "loadtest"));
+        test.seed();
+        for (String name : opts.getOrDefault("scenarios", "list,save,upload,me").split(",")) {
+            Scenario s = test.scenario(name.trim());
+            test.run(s, clients, warmup);
+            Result r = test.run(s, clients, seconds);
+            Result named = new Result(name.trim(), r.requests(), r.errors(), r.seconds(), r.latencies());
+            print(label, clients, named);
+            if (out != null) append(Path.of(out), label, clients, named);
+        }
+    }
+
+    private Scenario scenario(String name) {
+        return switch (name) {
+            // 列表第一頁（不含內容的摘要）
+            case "list" -> r -> send(request("/diaries?size=30").GET().build());
+            // 新增一篇日記
+            case "save" -> r -> send(request("/diaries")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(diaryJson(r)))
+                    .build());
+            // 只有認證、不碰資料庫的請求：量每個請求驗證 JWT 與載入使用者的成本
+            case "me" -> r -> send(request("/auth/me").GET().build());
+            // 上傳一張照片（開始上傳 + 一段送完），每次內容都不同，不會被去重
+            case "upload" -> this::upload;
+            default -> throw new IllegalArgumentException("未知的情境：" + name);
+        };
+    }
+
+    private void login(String user, String password) throws IOException, InterruptedException {
+        HttpResponse<String> res = client.send(HttpRequest.newBuilder(URI.create(url + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + user + "\",\"password\":\"" + password + "\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher token = TOKEN.matcher(res.body());
+        if (res.statusCode() != 200 || !token.find()) {
+            throw new IllegalStateException("登入失敗（" + res.statusCode() + "），請確認帳號密碼與 loadtest profile");
+        }
+        auth = "Bearer " + token.group(1);
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int upload(SplittableRandom r) throws IOException, InterruptedException {
+        byte[] body = uniqueImage(r);
+        HttpResponse<String> started = client.send(request("/images/uploads")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"size\":" + body.length + "}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher id = UPLOAD_ID.matcher(started.body());
+        if (started.statusCode() >= 300 || !id.find()) {
+            return started.statusCode() >= 300 ? started.statusCode() : 500;
+        }
+        return send(request("/images/uploads/" + id.group(1))
+                .header("Content-Type", "application/offset+octet-stream")
+                .header("Upload-Offset", "0")
+                .method("PATCH", HttpRequest.BodyPublishers.ofByteArray(body))
+                .build());
+    }
+
+    // 同一張 1600x1200 的 JPEG 後面接上隨機位元組：解碼結果相同，但雜湊每次都不一樣
+    private byte[] uniqueImage(SplittableRandom r) throws IOException {
+        if (image == null) {
+            synchronized (this) {
+                if (image == null) {
+                    BufferedImage img = new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB);
+                    for (int y = 0; y < img.getHeight(); y++) {
+                        for (int x = 0; x < img.getWidth(); x++) {
+                            img.setRGB(x, y, (x * 255 / img.getWidth()) << 16 | (y * 255 / img.getHeight()) << 8 | (x ^ y) & 0xff);
+                        }
+                    }
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    ImageIO.write(img, "jpg", out);
+                    image = out.toByteArray();
+                }
+            }
+        }
+        byte[] body = Arrays.copyOf(image, image.length + 16);
+        for (int i = image.length; i < body.length; i++) {
+            body[i] = (byte) r.nextInt(256);
+        }
+        return body;
+    }
+
+    /** 先寫入一些日記，列表情境才有資料可讀。 */
+    private void seed() throws Exception {
+        SplittableRandom random = new SplittableRandom(42);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            Scenario save = scenario("save");
+            List<Future<Integer>> sent = new ArrayList<>();
+            for (int i = 0; i < SEED_ENTRIES; i++) {
+                SplittableRandom r = random.split();
+                sent.add(pool.submit(() -> save.run(r)));
+                // 分批送出，不在量測前就把後端塞滿
+                if (sent.size() == 50) {
+                    for (Future<Integer> f : sent) check(f.get());
+                    sent.clear();
+                }
+            }
+            for (Future<Integer> f : sent) check(f.get());
+        }
+    }
+
+    private static void check(int status) {
+        if (status >= 300) {
+            throw new IllegalStateException("後端回應 " + status + "（請確認帳號密碼與 loadtest profile）");
+        }
+    }
+
+    private Result run(Scenario scenario, int clients, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] perClient = new long[clients][];
+        int[] counts = new int[clients];
+        long start = System.nanoTime();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int id = c;
+                pool.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(id);
+                    long[] lat = new long[256];
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        long t = System.nanoTime();
+                        try {
+                            if (scenario.run(random) >= 300) errors.incrementAndGet();
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                        if (n == lat.length) lat = Arrays.copyOf(lat, n * 2);
+                        lat[n++] = System.nanoTime() - t;
+                    }
+                    perClient[id] = lat;
+                    counts[id] = n;
+                });
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        int total = 0;
+        for (int n : counts) total += n;
+        long[] all = new long[total];
+        int pos = 0;
+        for (int c = 0; c < clients; c++) {
+            if (perClient[c] == null) continue;
+            System.arraycopy(perClient[c], 0, all, pos, counts[c]);
+            pos += counts[c];
+        }
+        Arrays.sort(all);
+        return new Result("", total, errors.get(), elapsed, all);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", auth);
+    }
+
+    private static String diaryJson(SplittableRandom r) {
+        LocalDate date = LocalDate.of(2015, 1, 1).plusDays(r.nextInt(3650));
+        return "{\"date\":\"" + date + "\",\"mood\":1,\"weather\":1,"
+                + "\"content\":\"壓力測試 " + r.nextLong() + "\"}";
+    }
+
+    private static void print(String label, int clients, Result r) {
+        System.out.printf("%-13s %-7s clients=%-5d %9.0f req/s  p50=%8.2fms  p95=%8.2fms  p99=%8.2fms  max=%8.2fms  errors=%d%n",
+                label, r.scenario(), clients, r.throughput(), r.percentile(0.50), r.percentile(0.95),
+                r.percentile(0.99), r.percentile(1.0), r.errors());
+    }
+
+    private static void append(Path file, String label, int clients, Result r) {
+        try {
+            if (!Files.exists(file)) {
+                Files.writeString(file, CSV_HEADER + "\n", StandardCharsets.UTF_8);
+            }
+            String row = String.format("%s,%s,%d,%d,%d,%.0f,%.2f,%.2f,%.2f,%.2f%n", label, r.scenario(), clients,
+                    r.requests(), r.errors(), r.throughput(), r.percentile(0.50), r.percentile(0.95),
+                    r.percentile(0.99), r.percentile(1.0));
+            Files.writeString(file, row, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
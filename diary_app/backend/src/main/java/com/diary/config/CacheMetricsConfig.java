@@ -0,0 +1,45 @@
+package com.diary.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 把 Hibernate 二級快取的每個區域註冊到 Micrometer：
+ * /actuator/metrics/cache.gets?tag=cache:diary-entries 可以看到命中（result:hit）與未命中（result:miss），
+ * cache.evictions 是因為容量或存活時間被淘汰的筆數，cache.puts 是寫入次數。
+ * <p>
+ * 數值來自 JCache 的統計（hibernate-cache.conf 的 monitoring.statistics），讀的是計數器，不影響查詢本身。
+ * 查詢區域取到但因資料表已更新而被 Hibernate 捨棄的結果，在這一層仍算命中。
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+    private static final List<String> QUERY_REGIONS = List.of(CacheRegions.DIARY_PAGES, CacheRegions.USER_LOOKUPS);
+
+    @Bean
+    public MeterBinder hibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+            if (!(sessionFactory.getCache().getRegionFactory() instanceof JCacheRegionFactory regionFactory)) {
+                return;
+            }
+            CacheManager cacheManager = regionFactory.getCacheManager();
+            // 查詢區域在第一次查詢時才建立，先取一次讓它們在這裡就能註冊（之後 Hibernate 拿到的是同一個）
+            for (String region : QUERY_REGIONS) {
+                cacheManager.getCache(region);
+            }
+            for (String name : cacheManager.getCacheNames()) {
+                new JCacheMetrics<>(cacheManager.getCache(name), Collections.emptyList()).bindTo(registry);
+            }
+        };
+    }
+}
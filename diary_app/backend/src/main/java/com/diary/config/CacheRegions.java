@@ -0,0 +1,22 @@
+package com.diary.config;
+
+/**
+ * Hibernate 二級快取的區域名稱，各區域的大小與存活時間設定在 hibernate-cache.conf。
+ * <p>
+ * 實體區域在交易提交時隨更新（{@code @UpdateTimestamp} 改變的那次 flush）一起更新或移除；
+ * 查詢區域則由 Hibernate 比對資料表最後修改時間，表有寫入後舊的查詢結果就不再使用。
+ */
+public final class CacheRegions {
+
+    /** 單篇日記，依 id 讀取 */
+    public static final String DIARY_ENTRIES = "diary-entries";
+    /** 使用者，依 id 讀取 */
+    public static final String USERS = "users";
+    /** 日記列表各頁的查詢結果 */
+    public static final String DIARY_PAGES = "diary-pages";
+    /** 依 email 找使用者的查詢結果（登入與認證） */
+    public static final String USER_LOOKUPS = "user-lookups";
+
+    private CacheRegions() {
+    }
+}
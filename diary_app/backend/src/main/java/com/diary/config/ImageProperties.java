@@ -0,0 +1,20 @@
+package com.diary.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 圖片庫設定（application.yml 的 images.*）。
+ *
+ * @param dir       圖片與上傳暫存檔的根目錄
+ * @param maxSize   單張圖片的大小上限
+ * @param variants  收到圖片後產生的縮圖寬度（最長邊，px）
+ * @param unusedTtl 沒有被引用的圖片與未完成的上傳保留多久
+ */
+@ConfigurationProperties(prefix = "images")
+public record ImageProperties(Path dir, DataSize maxSize, List<Integer> variants, Duration unusedTtl) {
+}
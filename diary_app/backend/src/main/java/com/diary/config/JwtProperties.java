@@ -0,0 +1,19 @@
+package com.diary.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * JWT 設定（application.yml 的 jwt.*）。
+ *
+ * @param secret             HS256 簽章金鑰，至少 32 個位元組
+ * @param expiration         token 有效期間（純數字為毫秒）
+ * @param tokenCacheSize     已驗證 token 快取的筆數上限，0 表示每個請求都重新驗證簽章
+ * @param principalCacheSize 使用者快取的筆數上限，0 表示每個請求都讀資料庫
+ * @param principalTtl       使用者快取的存活時間；資料有更新會立刻失效，這只是其他程式直接改資料庫時的上限
+ */
+@ConfigurationProperties(prefix = "jwt")
+public record JwtProperties(String secret, Duration expiration, int tokenCacheSize,
+                            int principalCacheSize, Duration principalTtl) {
+}
@@ -0,0 +1,35 @@
+package com.diary.config;
+
+import com.diary.model.User;
+import com.diary.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * 壓力測試用的固定帳號：啟動時建立在（H2）資料庫裡，壓力測試程式先用 /auth/login 取得 token，
+ * 之後每個請求都帶同一個 token，量到的是一般用戶端的情況（bcrypt 只在登入時算一次）。
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestSecurityConfig {
+
+    @Bean
+    // 在 Tomcat 開始接受請求之前建立（ApplicationRunner 會晚於開始接受請求，壓力測試程式可能搶先登入）
+    public SmartInitializingSingleton loadTestUser(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                                          @Value("${loadtest.user}") String name,
+                                          @Value("${loadtest.password}") String password) {
+        return () -> {
+            if (!userRepository.existsByEmail(name)) {
+                User user = new User();
+                user.setEmail(name);
+                user.setPassword(passwordEncoder.encode(password));
+                user.setDisplayName(name);
+                userRepository.save(user);
+            }
+        };
+    }
+}
@@ -0,0 +1,177 @@
+package com.diary.config;
+
+import com.diary.model.Mood;
+import com.diary.model.Weather;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * 把 diary_entries 舊的文字欄位 mood / weather 轉成 TINYINT 的 mood_code / weather_code（實體對應的是後者）。
+ * <p>
+ * {@code ddl-auto: update} 只會新增欄位，所以在 Hibernate 建立 EntityManagerFactory 之前先做：
+ * <ol>
+ *   <li>把 id 與原本的文字複製到 diary_entries_mood_backup（已經有就跳過）</li>
+ *   <li>新增 *_code 欄位，依 {@link Mood#fromText}、{@link Weather#fromText} 轉換（包含舊版的寫法）；
+ *       認不得的值只記 log、保持 0，原文字留在原欄位</li>
+ *   <li>文字欄位改成可以是 NULL，新寫入的日記只填 code</li>
+ * </ol>
+ * 不會自動刪除文字欄位：確認 log 裡沒有認不得的值後，設定 {@code diary.migration.drop-legacy-columns=true}
+ * 重新啟動才會刪除，而且還有認不得的值或沒有備份時仍然不刪。
+ * MySQL 的 DDL 不在交易裡，每一步都先檢查狀態，中途失敗時下次啟動會接著做；文字欄位刪掉之後只讀一次 metadata。
+ */
+@Slf4j
+@Component
+public class MoodCodeMigration implements InitializingBean {
+
+    private static final String TABLE = "diary_entries";
+    private static final String BACKUP = "diary_entries_mood_backup";
+    private static final String[] LEGACY_COLUMNS = {"mood", "weather"};
+
+    private final DataSource dataSource;
+    private final boolean dropLegacyColumns;
+
+    public MoodCodeMigration(DataSource dataSource,
+                             @Value("${diary.migration.drop-legacy-columns:false}") boolean dropLegacyColumns) {
+        this.dataSource = dataSource;
+        this.dropLegacyColumns = dropLegacyColumns;
+    }
+
+    /** 讓 EntityManagerFactory 等這個 bean 完成才建立 */
+    @Component
+    static class BeforeJpa extends EntityManagerFactoryDependsOnPostProcessor {
+        BeforeJpa() {
+            super("moodCodeMigration");
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            Map<String, Column> columns = columns(conn);
+            if (columns.isEmpty() || !isText(columns.get("mood")) && !isText(columns.get("weather"))) {
+                return; // 新的資料庫由 Hibernate 建立，或文字欄位已經刪掉了
+            }
+            // 每個 ALTER 只改一個欄位（H2 的 MySQL 相容模式不接受多個子句）
+            try (Statement st = conn.createStatement()) {
+                if (!hasTable(conn, BACKUP)) {
+                    // 先寫到暫存表再改名，中途失敗不會留下不完整的備份
+                    st.executeUpdate("DROP TABLE IF EXISTS " + BACKUP + "_tmp");
+                    st.executeUpdate("CREATE TABLE " + BACKUP + "_tmp AS SELECT id, mood, weather FROM " + TABLE);
+                    st.executeUpdate("ALTER TABLE " + BACKUP + "_tmp RENAME TO " + BACKUP);
+                    log.info("已將 {} 原本的心情與天氣備份到 {}", TABLE, BACKUP);
+                }
+                for (String column : LEGACY_COLUMNS) {
+                    if (!columns.containsKey(column + "_code")) {
+                        st.executeUpdate("ALTER TABLE " + TABLE + " ADD COLUMN " + column + "_code"
+                                + " TINYINT NOT NULL DEFAULT 0");
+                    }
+                }
+                Map<String, Integer> unknown = backfill(conn);
+                unknown.forEach((text, rows) -> log.warn("不認得的{}：{} 篇，code 保持 0，原文字仍保留", text, rows));
+
+                for (String column : LEGACY_COLUMNS) {
+                    Column c = columns.get(column);
+                    if (isText(c) && !c.nullable()) {
+                        st.executeUpdate("ALTER TABLE " + TABLE + " MODIFY COLUMN " + column
+                                + " " + (c.type().contains("text") ? c.type() : "VARCHAR(" + c.size() + ")") + " NULL");
+                    }
+                }
+
+                if (!dropLegacyColumns) {
+                    log.info("{} 的文字欄位 mood / weather 仍保留；確認轉換無誤後設定"
+                            + " diary.migration.drop-legacy-columns=true 再啟動一次即可刪除", TABLE);
+                } else if (!unknown.isEmpty()) {
+                    log.warn("還有認不得的心情或天氣，文字欄位沒有刪除");
+                } else {
+                    for (String column : LEGACY_COLUMNS) {
+                        if (isText(columns.get(column))) {
+                            st.executeUpdate("ALTER TABLE " + TABLE + " DROP COLUMN " + column);
+                        }
+                    }
+                    log.info("已刪除 {} 的文字欄位 mood / weather（備份在 {}）", TABLE, BACKUP);
+                }
+            }
+        }
+    }
+
+    /** 文字有值、code 還是 0 的列補上 code；回傳認不得的值與篇數，這些列維持原狀 */
+    private static Map<String, Integer> backfill(Connection conn) throws SQLException {
+        Map<String, Integer> unknown = new LinkedHashMap<>();
+        int rows = backfill(conn, "mood", "心情", t -> Mood.fromText(t).code(), unknown)
+                + backfill(conn, "weather", "天氣", t -> Weather.fromText(t).code(), unknown);
+        if (rows > 0) {
+            log.info("已將 {} 個心情或天氣轉換為代碼", rows);
+        }
+        return unknown;
+    }
+
+    private static int backfill(Connection conn, String column, String name, ToIntFunction<String> codeOf,
+                                Map<String, Integer> unknown) throws SQLException {
+        String pending = column + "_code = 0 AND " + column + " IS NOT NULL AND " + column + " <> ''";
+        String select = "SELECT " + column + ", COUNT(*) FROM " + TABLE + " WHERE " + pending + " GROUP BY " + column;
+        String update = "UPDATE " + TABLE + " SET " + column + "_code = ? WHERE " + column + "_code = 0 AND "
+                + column + " = ?";
+        // 一種寫法一個 UPDATE，不同的寫法通常只有十幾種
+        int rows = 0;
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(select);
+             PreparedStatement ps = conn.prepareStatement(update)) {
+            while (rs.next()) {
+                String text = rs.getString(1);
+                int code = codeOf.applyAsInt(text);
+                if (code == 0) {
+                    unknown.put(name + "「" + text + "」", rs.getInt(2));
+                    continue;
+                }
+                ps.setByte(1, (byte) code);
+                ps.setString(2, text);
+                ps.addBatch();
+            }
+            for (int n : ps.executeBatch()) {
+                rows += n;
+            }
+        }
+        return rows;
+    }
+
+    private record Column(String type, int size, boolean nullable) {
+    }
+
+    /** 欄位名稱（小寫）→ 型別、長度與能不能是 NULL；資料表不存在時為空 */
+    private static Map<String, Column> columns(Connection conn) throws SQLException {
+        Map<String, Column> columns = new HashMap<>();
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, TABLE, null)) {
+            while (rs.next()) {
+                columns.put(rs.getString("COLUMN_NAME").toLowerCase(), new Column(
+                        rs.getString("TYPE_NAME").toLowerCase(),
+                        rs.getInt("COLUMN_SIZE"),
+                        "YES".equals(rs.getString("IS_NULLABLE"))));
+            }
+        }
+        return columns;
+    }
+
+    private static boolean hasTable(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    private static boolean isText(Column column) {
+        return column != null && (column.type().contains("char") || column.type().contains("text"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.diary.controller;
+
+import com.diary.dto.LoginRequest;
+import com.diary.dto.RegisterRequest;
+import com.diary.dto.TokenResponse;
+import com.diary.dto.UserProfile;
+import com.diary.security.AuthUser;
+import com.diary.security.JwtService;
+import com.diary.service.AuthService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 註冊、登入與換發 token。token 是無狀態的：換發後舊的 token 在到期前仍然有效，
+ * 停用帳號則會讓該帳號所有的 token 立刻失效。
+ */
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class AuthController {
+
+    private final AuthService authService;
+    private final JwtService jwtService;
+
+    @PostMapping("/register")
+    @ResponseStatus(HttpStatus.CREATED)
+    public TokenResponse register(@Valid @RequestBody RegisterRequest body) {
+        return authService.register(body);
+    }
+
+    @PostMapping("/login")
+    public TokenResponse login(@Valid @RequestBody LoginRequest body) {
+        return authService.login(body);
+    }
+
+    @PostMapping("/refresh")
+    public TokenResponse refresh(@AuthenticationPrincipal AuthUser user) {
+        return jwtService.issue(user.id());
+    }
+
+    @GetMapping("/me")
+    public UserProfile me(@AuthenticationPrincipal AuthUser user) {
+        return UserProfile.of(user);
+    }
+}
@@ -0,0 +1,110 @@
+package com.diary.controller;
+
+import com.diary.dto.DiaryCursor;
+import com.diary.dto.DiaryPage;
+import com.diary.dto.DiaryRequest;
+import com.diary.dto.DiarySummary;
+import com.diary.model.DiaryEntry;
+import com.diary.service.DiaryEntryService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.LocalDate;
+
+/**
+ * 日記 CRUD。列表使用 keyset 分頁，GET 回應都帶 ETag，
+ * 用戶端帶 If-None-Match 重新整理時內容沒變就只回 304。
+ * <p>
+ * 列表可用 {@code ?mood=&weather=} 篩選，值是 code 的遮罩（1 &lt;&lt; code 的組合，例如 mood=18 為 1 和 4），0 表示不篩選。
+ */
+@RestController
+@RequestMapping("/diaries")
+@RequiredArgsConstructor
+public class DiaryController {
+
+    // 每次都要向伺服器確認，但內容沒變時不必重新下載
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final DiaryEntryService diaryEntryService;
+
+    @GetMapping
+    public ResponseEntity<DiaryPage> list(Principal principal,
+                                          @RequestParam(required = false) String after,
+                                          @RequestParam(defaultValue = "" + DiaryEntryService.DEFAULT_PAGE_SIZE) int size,
+                                          @RequestParam(defaultValue = "0") int mood,
+                                          @RequestParam(defaultValue = "0") int weather,
+                                          WebRequest request) {
+        DiaryCursor cursor = after == null || after.isBlank() ? null : DiaryCursor.decode(after);
+        DiaryPage page = diaryEntryService.list(principal.getName(), cursor, size, mood, weather);
+        String etag = etag(page);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(page);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<DiaryEntry> get(Principal principal, @PathVariable String id, WebRequest request) {
+        return conditional(diaryEntryService.get(principal.getName(), id), request);
+    }
+
+    @GetMapping("/date/{date}")
+    public ResponseEntity<DiaryEntry> getByDate(Principal principal,
+                                                @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                WebRequest request) {
+        return conditional(diaryEntryService.getByDate(principal.getName(), date), request);
+    }
+
+    @PostMapping
+    public ResponseEntity<DiaryEntry> create(Principal principal, @Valid @RequestBody DiaryRequest body) {
+        DiaryEntry entry = diaryEntryService.create(principal.getName(), body);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(etag(entry)).body(entry);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<DiaryEntry> update(Principal principal, @PathVariable String id,
+                                             @Valid @RequestBody DiaryRequest body) {
+        DiaryEntry entry = diaryEntryService.update(principal.getName(), id, body);
+        return ResponseEntity.ok().eTag(etag(entry)).body(entry);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(Principal principal, @PathVariable String id) {
+        diaryEntryService.delete(principal.getName(), id);
+    }
+
+    private static ResponseEntity<DiaryEntry> conditional(DiaryEntry entry, WebRequest request) {
+        String etag = etag(entry);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(entry);
+    }
+
+    // 每篇的 id + updatedAt 就能代表內容版本，不必序列化整個回應再算雜湊
+    private static String etag(DiaryEntry entry) {
+        return hash(entry.getId() + "@" + entry.getUpdatedAt());
+    }
+
+    private static String etag(DiaryPage page) {
+        StringBuilder sb = new StringBuilder();
+        for (DiarySummary s : page.items()) {
+            sb.append(s.id()).append('@').append(s.updatedAt()).append(';');
+        }
+        return hash(sb.append(page.next()).toString());
+    }
+
+    private static String hash(String s) {
+        return "\"" + DigestUtils.md5DigestAsHex(s.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
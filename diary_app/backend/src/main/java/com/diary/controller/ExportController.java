@@ -0,0 +1,60 @@
+package com.diary.controller;
+
+import com.diary.exception.BadRequestException;
+import com.diary.service.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.LocalDate;
+
+/**
+ * 匯出全部日記。
+ * <pre>
+ *   GET /export?format=ndjson|zip&from=yyyy-MM-dd
+ * </pre>
+ * 直接寫到回應的輸出串流（不經過非同步的 StreamingResponseBody，不受非同步請求逾時限制）。
+ * 中斷後以收到的最後一篇的日期帶在 from 上重新匯出，那一天會重複，用戶端以 id 覆蓋即可。
+ */
+@RestController
+@RequestMapping("/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @GetMapping
+    public void export(Principal principal,
+                       @RequestParam(defaultValue = "ndjson") String format,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                       HttpServletResponse response) throws IOException {
+        LocalDate start = from == null ? ExportService.EARLIEST : from;
+        String name = "diary" + (from == null ? "" : "-" + from);
+        switch (format) {
+            case "ndjson" -> {
+                prepare(response, SyncController.NDJSON.toString(), name + ".ndjson");
+                exportService.writeNdjson(principal.getName(), start, response.getOutputStream());
+            }
+            case "zip" -> {
+                prepare(response, "application/zip", name + ".zip");
+                exportService.writeZip(principal.getName(), start, response.getOutputStream());
+            }
+            default -> throw new BadRequestException("不支援的格式：" + format);
+        }
+    }
+
+    private static void prepare(HttpServletResponse response, String contentType, String filename) {
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+    }
+}
@@ -0,0 +1,160 @@
+package com.diary.controller;
+
+import com.diary.dto.UploadRequest;
+import com.diary.dto.UploadStatus;
+import com.diary.service.ImageStoreService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.Principal;
+
+/**
+ * 圖片上傳與下載。
+ * <pre>
+ *   POST   /images/uploads        {"size": 總大小, "sha256": 選填}  開始上傳
+ *   PATCH  /images/uploads/{id}   Upload-Offset: 已收到的位元組數，內容為這一段的原始資料
+ *                                 （Content-Type: application/offset+octet-stream）
+ *   GET    /images/uploads/{id}   查詢已收到多少（斷線後續傳用）
+ *   DELETE /images/uploads/{id}   放棄上傳
+ *   GET    /images/{sha256}?w=寬度  取得圖片或縮圖，支援 Range
+ * </pre>
+ */
+@RestController
+@RequestMapping("/images")
+@RequiredArgsConstructor
+public class ImageController {
+
+    public static final String UPLOAD_OFFSET = "Upload-Offset";
+    public static final String OFFSET_OCTET_STREAM = "application/offset+octet-stream";
+
+    // Tomcat 的 sendfile：由連接器直接把檔案送到 socket（zero-copy），不經過 JVM 的緩衝區
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // 內容以雜湊定址，同一個網址的內容永遠不變
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private final ImageStoreService imageStoreService;
+
+    @PostMapping("/uploads")
+    @ResponseStatus(HttpStatus.CREATED)
+    public UploadStatus start(Principal principal, @Valid @RequestBody UploadRequest body) {
+        return imageStoreService.start(principal.getName(), body);
+    }
+
+    @GetMapping("/uploads/{id}")
+    public UploadStatus status(Principal principal, @PathVariable String id) {
+        return imageStoreService.status(principal.getName(), id);
+    }
+
+    @PatchMapping(value = "/uploads/{id}", consumes = {OFFSET_OCTET_STREAM, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public UploadStatus append(Principal principal, @PathVariable String id,
+                               @RequestHeader(UPLOAD_OFFSET) long offset,
+                               HttpServletRequest request) throws IOException {
+        return imageStoreService.append(principal.getName(), id, offset, request.getInputStream());
+    }
+
+    @DeleteMapping("/uploads/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancel(Principal principal, @PathVariable String id) {
+        imageStoreService.cancel(principal.getName(), id);
+    }
+
+    @GetMapping("/{hash}")
+    public void serve(@PathVariable String hash, @RequestParam(name = "w", required = false) Integer width,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = imageStoreService.resolve(hash, width);
+        String etag = "\"" + file.getFileName() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long length = Files.size(file);
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        // 只處理單一範圍；多段範圍直接回整個檔案（規格允許）
+        if (range != null && range.startsWith("bytes=") && !range.contains(",")) {
+            long[] r = parseRange(range.substring(6).trim(), length);
+            if (r == null) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            start = r[0];
+            end = r[1];
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        response.setContentType(imageStoreService.contentType(hash, file));
+        response.setContentLengthLong(end - start + 1);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        // 不支援 sendfile（例如 HTTPS）時由 FileChannel 分段送出
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long pos = start;
+            while (pos <= end) {
+                pos += in.transferTo(pos, end + 1 - pos, target);
+            }
+            out.flush();
+        }
+    }
+
+    /** "a-b"、"a-"、"-n"；範圍無效時回傳 null */
+    private static long[] parseRange(String spec, long length) {
+        int dash = spec.indexOf('-');
+        if (dash < 0 || length == 0) {
+            return null;
+        }
+        try {
+            String from = spec.substring(0, dash).trim();
+            String to = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (from.isEmpty()) {
+                long suffix = Long.parseLong(to);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(from);
+                end = to.isEmpty() ? length - 1 : Math.min(Long.parseLong(to), length - 1);
+            }
+            return start > end || start >= length ? null : new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.diary.controller;
+
+import com.diary.dto.DiaryChange;
+import com.diary.dto.SyncCheckpoint;
+import com.diary.dto.SyncCursor;
+import com.diary.dto.SyncResult;
+import com.diary.dto.SyncUpload;
+import com.diary.service.SyncService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * 增量同步。
+ * <pre>
+ *   GET  /sync/changes?since=游標   NDJSON：每行一筆變動，最後一行是 {"cursor": ..., "more": ...}
+ *   POST /sync                      一次上傳多筆修改
+ * </pre>
+ */
+@RestController
+@RequestMapping("/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    // 每次查詢資料庫的筆數；每批寫出後 flush，用戶端邊收邊寫入本機資料庫
+    private static final int BATCH = 500;
+    private static final int MAX_LIMIT = 50_000;
+
+    private final SyncService syncService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping("/changes")
+    public ResponseEntity<StreamingResponseBody> changes(Principal principal,
+                                                         @RequestParam(required = false) String since,
+                                                         @RequestParam(defaultValue = "5000") int limit) {
+        String userId = principal.getName();
+        SyncCursor start = since == null || since.isBlank() ? SyncCursor.START : SyncCursor.decode(since);
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        StreamingResponseBody body = out -> {
+            SyncCursor cursor = start;
+            int sent = 0;
+            boolean more = true;
+            while (more && sent < max) {
+                int n = Math.min(BATCH, max - sent);
+                List<DiaryChange> batch = syncService.changesAfter(userId, cursor, n);
+                for (DiaryChange c : batch) {
+                    writeLine(out, c);
+                }
+                out.flush();
+                sent += batch.size();
+                if (!batch.isEmpty()) {
+                    cursor = SyncCursor.of(batch.get(batch.size() - 1));
+                }
+                more = batch.size() == n;
+            }
+            SyncCursor next = more ? cursor : syncService.checkpoint(cursor);
+            writeLine(out, new SyncCheckpoint(next.encode(), more));
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @PostMapping
+    public SyncResult upload(Principal principal, @Valid @RequestBody SyncUpload upload) {
+        return syncService.upload(principal.getName(), upload.changes());
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,42 @@
+package com.diary.dto;
+
+import com.diary.model.DiaryEntry;
+import com.diary.model.DiaryTombstone;
+import com.diary.model.Mood;
+import com.diary.model.Weather;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 同步時傳遞的一筆變動。deleted 為 true 時只有 id 與 updatedAt（刪除時間）有意義。
+ * mood / weather 是 {@link Mood#code()}、{@link Weather#code()}。
+ * <p>
+ * 上傳時 updatedAt 是用戶端修改的時間，用來和伺服器上的版本比較，較新的一方為準。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DiaryChange(
+        @NotBlank @Size(max = 255) String id,
+        LocalDate date,
+        @Min(0) @Max(Mood.MAX_CODE) Byte mood,
+        @Min(0) @Max(Weather.MAX_CODE) Byte weather,
+        String content,
+        @Size(max = 500) String imagePath,
+        LocalDateTime updatedAt,
+        boolean deleted
+) {
+
+    public static DiaryChange of(DiaryEntry e) {
+        return new DiaryChange(e.getId(), e.getDate(), e.getMood(), e.getWeather(), e.getContent(),
+                e.getImagePath(), e.getUpdatedAt(), false);
+    }
+
+    public static DiaryChange of(DiaryTombstone t) {
+        return new DiaryChange(t.getId(), null, null, null, null, null, t.getDeletedAt(), true);
+    }
+}
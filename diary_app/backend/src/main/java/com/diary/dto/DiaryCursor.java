@@ -0,0 +1,36 @@
+package com.diary.dto;
+
+import com.diary.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 分頁游標：上一頁最後一筆的 (date, id)。對用戶端是不透明的字串。
+ */
+public record DiaryCursor(LocalDate date, String id) {
+
+    public static DiaryCursor of(DiarySummary last) {
+        return new DiaryCursor(last.date(), last.id());
+    }
+
+    public String encode() {
+        String raw = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static DiaryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0) {
+                throw new BadRequestException("無效的分頁游標");
+            }
+            return new DiaryCursor(LocalDate.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("無效的分頁游標");
+        }
+    }
+}
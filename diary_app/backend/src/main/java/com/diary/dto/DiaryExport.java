@@ -0,0 +1,19 @@
+package com.diary.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 匯出檔中的一篇日記。直接由查詢建構，不經過實體，所以不會留在 persistence context 裡。
+ */
+public record DiaryExport(
+        String id,
+        LocalDate date,
+        byte mood,
+        byte weather,
+        String content,
+        String imagePath,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,9 @@
+package com.diary.dto;
+
+import java.util.List;
+
+/**
+ * 一頁日記摘要。next 為下一頁的游標，沒有更多資料時為 null。
+ */
+public record DiaryPage(List<DiarySummary> items, String next) {
+}
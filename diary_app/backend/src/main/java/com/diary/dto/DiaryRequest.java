@@ -0,0 +1,22 @@
+package com.diary.dto;
+
+import com.diary.model.Mood;
+import com.diary.model.Weather;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+
+/**
+ * 新增 / 更新日記的內容。mood / weather 是 {@link Mood#code()}、{@link Weather#code()}。
+ */
+public record DiaryRequest(
+        @NotNull LocalDate date,
+        @NotNull @Min(1) @Max(Mood.MAX_CODE) Byte mood,
+        @NotNull @Min(1) @Max(Weather.MAX_CODE) Byte weather,
+        @NotNull String content,
+        @Size(max = 500) String imagePath
+) {
+}
@@ -0,0 +1,17 @@
+package com.diary.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 列表用的日記摘要，不含 content（TEXT 欄位），列表查詢不必讀出整篇內容。
+ */
+public record DiarySummary(
+        String id,
+        LocalDate date,
+        byte mood,
+        byte weather,
+        String imagePath,
+        LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,7 @@
+package com.diary.dto;
+
+/**
+ * 變動串流的最後一行：下次同步帶上 cursor；more 為 true 表示這次沒有傳完，應立刻再同步一次。
+ */
+public record SyncCheckpoint(String cursor, boolean more) {
+}
@@ -0,0 +1,39 @@
+package com.diary.dto;
+
+import com.diary.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 同步游標：用戶端上次收到的最後一筆變動的 (時間, id)。對用戶端是不透明的字串。
+ */
+public record SyncCursor(LocalDateTime at, String id) {
+
+    /** 第一次同步，從頭開始 */
+    public static final SyncCursor START = new SyncCursor(LocalDateTime.of(1970, 1, 1, 0, 0), "");
+
+    public static SyncCursor of(DiaryChange last) {
+        return new SyncCursor(last.updatedAt(), last.id());
+    }
+
+    public String encode() {
+        String raw = at + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0) {
+                throw new BadRequestException("無效的同步游標");
+            }
+            return new SyncCursor(LocalDateTime.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("無效的同步游標");
+        }
+    }
+}
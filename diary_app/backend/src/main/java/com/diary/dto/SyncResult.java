@@ -0,0 +1,10 @@
+package com.diary.dto;
+
+import java.util.List;
+
+/**
+ * 上傳結果。applied 是已套用的 id；rejected 是伺服器上的版本比較新而沒有套用的，
+ * 附上伺服器目前的版本，用戶端直接以它覆蓋本機資料。
+ */
+public record SyncResult(List<String> applied, List<DiaryChange> rejected) {
+}
@@ -0,0 +1,13 @@
+package com.diary.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * 用戶端離線期間累積的修改，一次上傳、在同一個交易中套用。
+ */
+public record SyncUpload(@NotNull @Size(max = 500) List<@Valid DiaryChange> changes) {
+}
@@ -0,0 +1,9 @@
+package com.diary.dto;
+
+import java.time.Instant;
+
+/**
+ * 登入結果：之後的請求帶 {@code Authorization: Bearer <token>}，過期前可用 /auth/refresh 換新的。
+ */
+public record TokenResponse(String token, Instant expiresAt) {
+}
@@ -0,0 +1,13 @@
+package com.diary.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * 開始一個分段上傳。有帶 sha256 且伺服器已經有同樣的圖時，不必再上傳內容。
+ */
+public record UploadRequest(
+        @Positive long size,
+        @Pattern(regexp = "[0-9a-f]{64}") String sha256
+) {
+}
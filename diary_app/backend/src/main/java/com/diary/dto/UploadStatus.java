@@ -0,0 +1,19 @@
+package com.diary.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 分段上傳的進度。offset 是伺服器已收到的位元組數，續傳時從這裡接著送；
+ * 收完之後 url 為圖片位址（/images/{sha256}），可以直接放進日記的 imagePath。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UploadStatus(String id, long offset, long size, String url) {
+
+    public static UploadStatus pending(String id, long offset, long size) {
+        return new UploadStatus(id, offset, size, null);
+    }
+
+    public static UploadStatus done(String id, long size, String hash) {
+        return new UploadStatus(id, size, size, "/images/" + hash);
+    }
+}
@@ -0,0 +1,10 @@
+package com.diary.dto;
+
+import com.diary.security.AuthUser;
+
+public record UserProfile(String id, String email, String displayName) {
+
+    public static UserProfile of(AuthUser user) {
+        return new UserProfile(user.id(), user.email(), user.displayName());
+    }
+}
@@ -1,24 +1,38 @@
 package com.diary.model;
 
+import com.diary.config.CacheRegions;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
-@Table(name = "diary_entries")
+// 列表依使用者、日期由新到舊分頁（keyset），InnoDB 的次要索引本身就帶著主鍵 id，
+// 所以 (user_id, date) 這個索引同時涵蓋 ORDER BY date DESC, id DESC
+// 同步依 updatedAt 找出變動，所以另有 (user_id, updated_at) 索引；
+// 依心情 / 天氣篩選用 (user_id, mood_code, weather_code, date)，兩個 TINYINT 讓索引只多 2 個位元組
+@Table(name = "diary_entries", indexes = {
+        @Index(name = "idx_diary_entries_user_date", columnList = "userId, date"),
+        @Index(name = "idx_diary_entries_user_updated", columnList = "userId, updatedAt"),
+        @Index(name = "idx_diary_entries_user_mood_weather", columnList = "userId, mood_code, weather_code, date")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.DIARY_ENTRIES)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class DiaryEntry {
 
+    // 離線建立的日記由用戶端產生 UUID，上傳時沿用同一個 id
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
     @Column(nullable = false)
@@ -27,11 +41,13 @@ public class DiaryEntry {
     @Column(nullable = false)
     private LocalDate date;
 
-    @Column(nullable = false)
-    private String mood;
+    /** {@link Mood#code()}；欄位名稱和舊的文字欄位 mood 分開，見 MoodCodeMigration */
+    @Column(name = "mood_code", nullable = false, columnDefinition = "TINYINT")
+    private byte mood;
 
-    @Column(nullable = false)
-    private String weather;
+    /** {@link Weather#code()} */
+    @Column(name = "weather_code", nullable = false, columnDefinition = "TINYINT")
+    private byte weather;
 
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
@@ -46,4 +62,11 @@ public class DiaryEntry {
     @UpdateTimestamp
     @Column(nullable = false)
     private LocalDateTime updatedAt;
+
+    @PrePersist
+    void assignId() {
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+        }
+    }
 }
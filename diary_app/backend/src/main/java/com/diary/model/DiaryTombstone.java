@@ -0,0 +1,35 @@
+package com.diary.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已刪除日記的紀錄，讓離線的用戶端同步時知道要刪掉本機的那一篇。
+ */
+@Entity
+@Table(name = "diary_tombstones", indexes = {
+        @Index(name = "idx_diary_tombstones_user_deleted", columnList = "userId, deletedAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiaryTombstone {
+
+    /** 被刪除的 DiaryEntry id */
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    public static DiaryTombstone of(DiaryEntry entry) {
+        return new DiaryTombstone(entry.getId(), entry.getUserId(), LocalDateTime.now());
+    }
+}
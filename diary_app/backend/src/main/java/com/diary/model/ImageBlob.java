@@ -0,0 +1,46 @@
+package com.diary.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 圖片庫中的一個檔案，以內容的 SHA-256 為 key：同一張圖不論上傳幾次都只存一份。
+ */
+@Entity
+@Table(name = "image_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false, length = 50)
+    private String contentType;
+
+    private int width;
+
+    private int height;
+
+    /** 引用這張圖的日記篇數；歸零並超過保留時間後檔案會被刪除 */
+    @Column(nullable = false)
+    private int refCount;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /** 最後一次被上傳或引用的時間 */
+    @Column(nullable = false)
+    private LocalDateTime lastUsedAt;
+}
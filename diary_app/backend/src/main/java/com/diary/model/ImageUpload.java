@@ -0,0 +1,42 @@
+package com.diary.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分段上傳。已收到的位元組數就是暫存檔的大小，不另外記錄。
+ */
+@Entity
+@Table(name = "image_uploads")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageUpload {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String userId;
+
+    /** 檔案總大小 */
+    @Column(nullable = false)
+    private long size;
+
+    /** 用戶端宣告的 SHA-256，收完後用來檢查內容 */
+    @Column(length = 64)
+    private String sha256;
+
+    /** 收完並存進圖片庫後的 SHA-256；有值表示已完成，紀錄留到 collectGarbage 清掉為止 */
+    @Column(length = 64)
+    private String storedSha256;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
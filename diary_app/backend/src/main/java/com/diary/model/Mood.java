@@ -0,0 +1,107 @@
+package com.diary.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 心情。資料表與 JSON 只存 {@link #code()}（TINYINT / 數字），表情符號與文字由這張表查出。
+ * <p>
+ * code 就是宣告順序並且已經存進資料庫，和桌面版、App 共用同一組編號，只能在最後面新增。
+ */
+public enum Mood {
+    UNSET(null, null),
+    GREAT("😊", "很棒"),
+    OK("🙂", "普通"),
+    SUPER("😀", "超好"),
+    SAD("😕", "難過"),
+    EXPLODED("🤯", "爆炸了");
+
+    /** 最大的 code，給請求驗證用；新增選項時一起調整 */
+    public static final int MAX_CODE = 5;
+
+    private static final Mood[] BY_CODE = values();
+
+    // 舊版文字資料用過、現在沒有的寫法，對到最接近的心情
+    private static final Map<String, Mood> LEGACY = Map.of(
+            "還行", OK,
+            "還好", OK,
+            "😐", OK,
+            "😄", SUPER,
+            "🙁", SAD,
+            "糟透了", SAD,
+            "😭", SAD
+    );
+
+    private final String emoji;
+    private final String label;
+
+    Mood(String emoji, String label) {
+        this.emoji = emoji;
+        this.label = label;
+    }
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public String emoji() {
+        return emoji;
+    }
+
+    /** 不含表情符號的文字，UNSET 為 null */
+    public String label() {
+        return label;
+    }
+
+    /** 篩選用的遮罩位元（1 &lt;&lt; code），多個以 | 組合 */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /** 不認得的 code 視為 UNSET */
+    public static Mood of(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : UNSET;
+    }
+
+    /**
+     * 由舊版存的文字找回心情（轉換舊資料用）：「表情 文字」、只有文字、只有表情符號，或舊版用過的寫法都可以。
+     * 表情符號和文字對不上時以文字為準；空白或不認得時回傳 UNSET
+     */
+    public static Mood fromText(String text) {
+        if (text == null || text.isBlank()) {
+            return UNSET;
+        }
+        // 表情符號後面的 U+FE0F 有時有、有時沒有，比對時一律去掉
+        String t = text.strip().replace("\uFE0F", "");
+        int space = t.indexOf(' ');
+        String emoji = space < 0 ? t : t.substring(0, space);
+        String word = t.substring(space + 1);
+        for (int i = 1; i < BY_CODE.length; i++) {
+            if (BY_CODE[i].label.equals(word)) {
+                return BY_CODE[i];
+            }
+        }
+        for (int i = 1; i < BY_CODE.length; i++) {
+            if (BY_CODE[i].emoji.replace("\uFE0F", "").equals(emoji)) {
+                return BY_CODE[i];
+            }
+        }
+        Mood legacy = LEGACY.get(word);
+        if (legacy == null) {
+            legacy = LEGACY.get(emoji);
+        }
+        return legacy == null ? UNSET : legacy;
+    }
+
+    /** 遮罩中的 code；遮罩為 0（不篩選）時回傳全部 */
+    public static List<Byte> codes(int mask) {
+        List<Byte> codes = new ArrayList<>(BY_CODE.length);
+        for (Mood v : BY_CODE) {
+            if (mask == 0 || (mask & v.bit()) != 0) {
+                codes.add(v.code());
+            }
+        }
+        return codes;
+    }
+}
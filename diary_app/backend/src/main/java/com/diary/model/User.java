@@ -1,15 +1,22 @@
 package com.diary.model;
 
+import com.diary.config.CacheRegions;
+import com.diary.security.UserChangeListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USERS)
+@EntityListeners(UserChangeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,118 @@
+package com.diary.repository;
+
+import com.diary.config.CacheRegions;
+import com.diary.dto.DiaryExport;
+import com.diary.dto.DiarySummary;
+import com.diary.model.DiaryEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface DiaryEntryRepository extends JpaRepository<DiaryEntry, String> {
+
+    /** 匯出時每批讀取的筆數，每批在各自的短交易中讀完 */
+    int EXPORT_BATCH_SIZE = 500;
+
+    /** 最新的一頁（不含 content）；結果放在查詢快取，日記表有任何寫入就失效 */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CacheRegions.DIARY_PAGES)
+    })
+    @Query("""
+            select new com.diary.dto.DiarySummary(e.id, e.date, e.mood, e.weather, e.imagePath, e.updatedAt)
+            from DiaryEntry e
+            where e.userId = :userId
+            order by e.date desc, e.id desc""")
+    List<DiarySummary> findFirstPage(@Param("userId") String userId, Pageable limit);
+
+    /** 從 (date, id) 之後接著往舊的讀，不用 OFFSET，翻到多後面都一樣快 */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CacheRegions.DIARY_PAGES)
+    })
+    @Query("""
+            select new com.diary.dto.DiarySummary(e.id, e.date, e.mood, e.weather, e.imagePath, e.updatedAt)
+            from DiaryEntry e
+            where e.userId = :userId
+              and (e.date < :date or (e.date = :date and e.id < :id))
+            order by e.date desc, e.id desc""")
+    List<DiarySummary> findPageAfter(@Param("userId") String userId,
+                                     @Param("date") LocalDate date,
+                                     @Param("id") String id,
+                                     Pageable limit);
+
+    /**
+     * 依心情 / 天氣篩選的最新一頁，moods / weathers 是允許的 code。
+     * 篩選組合很多、各自命中率低，不放進查詢快取
+     */
+    @Query("""
+            select new com.diary.dto.DiarySummary(e.id, e.date, e.mood, e.weather, e.imagePath, e.updatedAt)
+            from DiaryEntry e
+            where e.userId = :userId and e.mood in :moods and e.weather in :weathers
+            order by e.date desc, e.id desc""")
+    List<DiarySummary> findFirstPageMatching(@Param("userId") String userId,
+                                             @Param("moods") Collection<Byte> moods,
+                                             @Param("weathers") Collection<Byte> weathers,
+                                             Pageable limit);
+
+    /** 篩選後從 (date, id) 之後接著往舊的讀 */
+    @Query("""
+            select new com.diary.dto.DiarySummary(e.id, e.date, e.mood, e.weather, e.imagePath, e.updatedAt)
+            from DiaryEntry e
+            where e.userId = :userId and e.mood in :moods and e.weather in :weathers
+              and (e.date < :date or (e.date = :date and e.id < :id))
+            order by e.date desc, e.id desc""")
+    List<DiarySummary> findPageAfterMatching(@Param("userId") String userId,
+                                             @Param("moods") Collection<Byte> moods,
+                                             @Param("weathers") Collection<Byte> weathers,
+                                             @Param("date") LocalDate date,
+                                             @Param("id") String id,
+                                             Pageable limit);
+
+    /** 同步用：(updatedAt, id) 在游標之後的變動，由舊到新 */
+    @Query("""
+            select e from DiaryEntry e
+            where e.userId = :userId
+              and (e.updatedAt > :at or (e.updatedAt = :at and e.id > :id))
+            order by e.updatedAt, e.id""")
+    List<DiaryEntry> findChangedAfter(@Param("userId") String userId,
+                                      @Param("at") LocalDateTime at,
+                                      @Param("id") String id,
+                                      Pageable limit);
+
+    /** 匯出用：from 當天起依 (date, id) 由舊到新的第一批 */
+    @Query("""
+            select new com.diary.dto.DiaryExport(e.id, e.date, e.mood, e.weather, e.content, e.imagePath,
+                                                 e.createdAt, e.updatedAt)
+            from DiaryEntry e
+            where e.userId = :userId and e.date >= :from
+            order by e.date, e.id""")
+    List<DiaryExport> findExportPage(@Param("userId") String userId,
+                                     @Param("from") LocalDate from,
+                                     Pageable limit);
+
+    /** 匯出用：從 (date, id) 之後接著往新的讀下一批 */
+    @Query("""
+            select new com.diary.dto.DiaryExport(e.id, e.date, e.mood, e.weather, e.content, e.imagePath,
+                                                 e.createdAt, e.updatedAt)
+            from DiaryEntry e
+            where e.userId = :userId
+              and (e.date > :date or (e.date = :date and e.id > :id))
+            order by e.date, e.id""")
+    List<DiaryExport> findExportPageAfter(@Param("userId") String userId,
+                                          @Param("date") LocalDate date,
+                                          @Param("id") String id,
+                                          Pageable limit);
+
+    Optional<DiaryEntry> findFirstByUserIdAndDateOrderByUpdatedAtDesc(String userId, LocalDate date);
+}
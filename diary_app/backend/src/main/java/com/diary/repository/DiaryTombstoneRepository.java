@@ -0,0 +1,23 @@
+package com.diary.repository;
+
+import com.diary.model.DiaryTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DiaryTombstoneRepository extends JpaRepository<DiaryTombstone, String> {
+
+    @Query("""
+            select t from DiaryTombstone t
+            where t.userId = :userId
+              and (t.deletedAt > :at or (t.deletedAt = :at and t.id > :id))
+            order by t.deletedAt, t.id""")
+    List<DiaryTombstone> findDeletedAfter(@Param("userId") String userId,
+                                          @Param("at") LocalDateTime at,
+                                          @Param("id") String id,
+                                          Pageable limit);
+}
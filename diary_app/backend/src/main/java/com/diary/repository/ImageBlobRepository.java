@@ -0,0 +1,29 @@
+package com.diary.repository;
+
+import com.diary.model.ImageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    /** 在資料庫中直接加減引用數，不必先讀出來；回傳 0 表示沒有這張圖 */
+    @Transactional
+    @Modifying
+    @Query("update ImageBlob b set b.refCount = b.refCount + :delta, b.lastUsedAt = :now where b.hash = :hash")
+    int adjustRefCount(@Param("hash") String hash, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Query("select b.hash from ImageBlob b where b.refCount <= 0 and b.lastUsedAt < :cutoff")
+    List<String> findUnusedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    /** 確定仍然沒有被引用才刪除，和同時進行的引用不會互相衝突 */
+    @Transactional
+    @Modifying
+    @Query("delete from ImageBlob b where b.hash = :hash and b.refCount <= 0")
+    int deleteIfUnused(@Param("hash") String hash);
+}
@@ -0,0 +1,15 @@
+package com.diary.repository;
+
+import com.diary.model.ImageUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageUploadRepository extends JpaRepository<ImageUpload, String> {
+
+    Optional<ImageUpload> findByIdAndUserId(String id, String userId);
+
+    List<ImageUpload> findByCreatedAtBefore(LocalDateTime cutoff);
+}
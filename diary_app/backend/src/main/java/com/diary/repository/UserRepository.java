@@ -0,0 +1,22 @@
+package com.diary.repository;
+
+import com.diary.config.CacheRegions;
+import com.diary.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Optional;
+
+public interface UserRepository extends JpaRepository<User, String> {
+
+    // 認證時每個請求都會查，結果放在查詢快取；users 表有寫入就失效
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CacheRegions.USER_LOOKUPS)
+    })
+    Optional<User> findByEmail(String email);
+
+    boolean existsByEmail(String email);
+}
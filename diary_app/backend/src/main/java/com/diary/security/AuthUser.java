@@ -0,0 +1,21 @@
+package com.diary.security;
+
+import com.diary.model.User;
+
+import java.security.Principal;
+
+/**
+ * 認證後放在 SecurityContext 的使用者。getName() 是使用者 id，
+ * 所以各 controller 的 {@code principal.getName()} 直接就是 userId。
+ */
+public record AuthUser(String id, String email, String displayName, boolean active) implements Principal {
+
+    public static AuthUser of(User user) {
+        return new AuthUser(user.getId(), user.getEmail(), user.getDisplayName(), user.isActive());
+    }
+
+    @Override
+    public String getName() {
+        return id;
+    }
+}
@@ -0,0 +1,45 @@
+package com.diary.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 讀取 {@code Authorization: Bearer <token>}，驗證通過且帳號仍啟用時把 {@link AuthUser} 放進 SecurityContext。
+ * 沒有帶 token 或 token 無效時不處理，由後面的授權規則回 401。
+ * <p>
+ * 正常情況下 token 驗證與使用者都是快取命中，每個請求的認證只花一次 SHA-256 和兩次雜湊表查詢。
+ */
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final JwtService jwtService;
+    private final PrincipalService principalService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            String userId = jwtService.verify(header.substring(BEARER.length()).trim());
+            AuthUser user = userId == null ? null : principalService.load(userId);
+            if (user != null && user.active()) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(user, null, AuthorityUtils.NO_AUTHORITIES);
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
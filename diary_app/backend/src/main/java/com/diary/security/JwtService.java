@@ -0,0 +1,131 @@
+package com.diary.security;
+
+import com.diary.config.JwtProperties;
+import com.diary.dto.TokenResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 簽發與驗證 JWT。
+ * <p>
+ * 同一個 token 在有效期間內會被送上來很多次，驗證過的結果以 token 的 SHA-256 為 key 快取到 token 到期為止，
+ * 之後同一個 token 只要算一次雜湊，不必再解析 JSON、驗 HMAC 簽章。快取不保存 token 本身。
+ */
+@Service
+public class JwtService {
+
+    private record Verified(String userId, Instant expiresAt) {
+    }
+
+    // 每一筆快取到 token 本身到期為止
+    private static final Expiry<String, Verified> UNTIL_TOKEN_EXPIRES = new Expiry<>() {
+        @Override
+        public long expireAfterCreate(String hash, Verified v, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), v.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String hash, Verified v, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String hash, Verified v, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    };
+
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final Duration expiration;
+    // null 表示不快取（jwt.token-cache-size: 0）
+    private final Cache<String, Verified> verified;
+
+    public JwtService(JwtProperties properties, MeterRegistry registry) {
+        this.key = Keys.hmacShaKeyFor(properties.secret().getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.expiration = properties.expiration();
+        if (properties.tokenCacheSize() > 0) {
+            this.verified = Caffeine.newBuilder()
+                    .maximumSize(properties.tokenCacheSize())
+                    .expireAfter(UNTIL_TOKEN_EXPIRES)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(registry, verified, "jwt-tokens");
+        } else {
+            this.verified = null;
+        }
+    }
+
+    public TokenResponse issue(String userId) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(expiration);
+        String token = Jwts.builder()
+                .subject(userId)
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(expiresAt))
+                .signWith(key)
+                .compact();
+        return new TokenResponse(token, expiresAt);
+    }
+
+    /**
+     * 驗證 token，回傳使用者 id；簽章不對、格式錯誤或已過期時回傳 null。
+     */
+    public String verify(String token) {
+        if (verified == null) {
+            Verified v = parse(token);
+            return v == null ? null : v.userId();
+        }
+        String hash = sha256(token);
+        Verified v = verified.getIfPresent(hash);
+        if (v == null) {
+            v = parse(token);
+            if (v == null) {
+                return null;
+            }
+            verified.put(hash, v);
+        }
+        // 快取的過期是在維護時才清，這裡再確認一次
+        return v.expiresAt().isAfter(Instant.now()) ? v.userId() : null;
+    }
+
+    private Verified parse(String token) {
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getSubject() == null || claims.getExpiration() == null) {
+                return null;
+            }
+            return new Verified(claims.getSubject(), claims.getExpiration().toInstant());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
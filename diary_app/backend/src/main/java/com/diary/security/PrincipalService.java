@@ -0,0 +1,69 @@
+package com.diary.security;
+
+import com.diary.config.JwtProperties;
+import com.diary.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 依使用者 id 取得認證用的 {@link AuthUser}。每個請求都會用到，所以放在快取裡，不必每次開 Session 查資料庫；
+ * users 表有更新（例如停用帳號）時由 {@link UserChangeListener} 讓對應的項目失效。
+ */
+@Service
+public class PrincipalService {
+
+    private final UserRepository userRepository;
+    // null 表示不快取（jwt.principal-cache-size: 0）
+    private final Cache<String, AuthUser> principals;
+
+    public PrincipalService(UserRepository userRepository, JwtProperties properties, MeterRegistry registry) {
+        this.userRepository = userRepository;
+        if (properties.principalCacheSize() > 0) {
+            this.principals = Caffeine.newBuilder()
+                    .maximumSize(properties.principalCacheSize())
+                    .expireAfterWrite(properties.principalTtl())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(registry, principals, "auth-principals");
+        } else {
+            this.principals = null;
+        }
+    }
+
+    /** 找不到使用者時回傳 null；停用的帳號也會回傳，由呼叫端檢查 active */
+    public AuthUser load(String userId) {
+        if (principals == null) {
+            return find(userId);
+        }
+        // 找不到時 mapping 回傳 null，不會被快取
+        return principals.get(userId, this::find);
+    }
+
+    /**
+     * 讓使用者的快取失效。在交易中呼叫時，提交後會再清一次：
+     * 提交前其他請求可能又讀到舊資料放回快取。
+     */
+    public void evict(String userId) {
+        if (principals == null) {
+            return;
+        }
+        principals.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    principals.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    private AuthUser find(String userId) {
+        return userRepository.findById(userId).map(AuthUser::of).orElse(null);
+    }
+}
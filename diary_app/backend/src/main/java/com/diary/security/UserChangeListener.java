@@ -0,0 +1,30 @@
+package com.diary.security;
+
+import com.diary.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * User 的 JPA 實體監聽器：任何欄位更新（包含 active 停用 / 啟用）或刪除都讓認證快取失效，
+ * 下一個請求就會讀到新的狀態，停用的帳號手上還沒過期的 token 也會立刻被拒絕。
+ * <p>
+ * 由 Spring 建立（Hibernate 透過 SpringBeanContainer 取得），PrincipalService 依賴 EntityManagerFactory，
+ * 所以用 ObjectProvider 延後到第一次事件時才取得，避免循環依賴。
+ */
+@Component
+public class UserChangeListener {
+
+    private final ObjectProvider<PrincipalService> principalService;
+
+    public UserChangeListener(ObjectProvider<PrincipalService> principalService) {
+        this.principalService = principalService;
+    }
+
+    @PostUpdate
+    @PostRemove
+    void changed(User user) {
+        principalService.getObject().evict(user.getId());
+    }
+}
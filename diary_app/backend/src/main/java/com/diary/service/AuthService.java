@@ -0,0 +1,45 @@
+package com.diary.service;
+
+import com.diary.dto.LoginRequest;
+import com.diary.dto.RegisterRequest;
+import com.diary.dto.TokenResponse;
+import com.diary.exception.ConflictException;
+import com.diary.exception.UnauthorizedException;
+import com.diary.model.User;
+import com.diary.repository.UserRepository;
+import com.diary.security.JwtService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AuthService {
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtService jwtService;
+
+    @Transactional
+    public TokenResponse register(RegisterRequest request) {
+        if (userRepository.existsByEmail(request.email())) {
+            throw new ConflictException("這個 email 已經註冊過了");
+        }
+        User user = new User();
+        user.setEmail(request.email());
+        user.setPassword(passwordEncoder.encode(request.password()));
+        user.setDisplayName(request.displayName());
+        return jwtService.issue(userRepository.save(user).getId());
+    }
+
+    /** 比對密碼（bcrypt）只在登入時做一次，之後的請求只驗 token */
+    public TokenResponse login(LoginRequest request) {
+        return userRepository.findByEmail(request.email())
+                .filter(User::isActive)
+                .filter(user -> passwordEncoder.matches(request.password(), user.getPassword()))
+                .map(user -> jwtService.issue(user.getId()))
+                .orElseThrow(() -> new UnauthorizedException("帳號或密碼錯誤"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.diary.service;
+
+import com.diary.dto.DiaryCursor;
+import com.diary.dto.DiaryPage;
+import com.diary.dto.DiaryRequest;
+import com.diary.dto.DiarySummary;
+import com.diary.exception.NotFoundException;
+import com.diary.model.DiaryEntry;
+import com.diary.model.DiaryTombstone;
+import com.diary.model.Mood;
+import com.diary.model.Weather;
+import com.diary.repository.DiaryEntryRepository;
+import com.diary.repository.DiaryTombstoneRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class DiaryEntryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 30;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final DiaryEntryRepository diaryEntryRepository;
+    private final DiaryTombstoneRepository diaryTombstoneRepository;
+    private final ImageStoreService imageStoreService;
+
+    /**
+     * 依日期由新到舊取一頁摘要；after 為 null 時從最新的開始。
+     * moodMask / weatherMask 是 {@link Mood#bit()}、{@link Weather#bit()} 的組合，0 表示不篩選。
+     */
+    public DiaryPage list(String userId, DiaryCursor after, int size, int moodMask, int weatherMask) {
+        int n = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // 多讀一筆判斷後面還有沒有資料，不必另外 count
+        PageRequest limit = PageRequest.ofSize(n + 1);
+        List<DiarySummary> rows;
+        if (moodMask == 0 && weatherMask == 0) {
+            rows = after == null
+                    ? diaryEntryRepository.findFirstPage(userId, limit)
+                    : diaryEntryRepository.findPageAfter(userId, after.date(), after.id(), limit);
+        } else {
+            List<Byte> moods = Mood.codes(moodMask);
+            List<Byte> weathers = Weather.codes(weatherMask);
+            rows = after == null
+                    ? diaryEntryRepository.findFirstPageMatching(userId, moods, weathers, limit)
+                    : diaryEntryRepository.findPageAfterMatching(userId, moods, weathers,
+                            after.date(), after.id(), limit);
+        }
+        if (rows.size() <= n) {
+            return new DiaryPage(rows, null);
+        }
+        List<DiarySummary> items = rows.subList(0, n);
+        return new DiaryPage(List.copyOf(items), DiaryCursor.of(items.get(n - 1)).encode());
+    }
+
+    public DiaryEntry get(String userId, String id) {
+        // 依主鍵讀取才會用到二級快取，擁有者另外比對
+        return diaryEntryRepository.findById(id)
+                .filter(e -> e.getUserId().equals(userId))
+                .orElseThrow(() -> new NotFoundException("找不到日記：" + id));
+    }
+
+    public DiaryEntry getByDate(String userId, LocalDate date) {
+        return diaryEntryRepository.findFirstByUserIdAndDateOrderByUpdatedAtDesc(userId, date)
+                .orElseThrow(() -> new NotFoundException("這天沒有日記：" + date));
+    }
+
+    @Transactional
+    public DiaryEntry create(String userId, DiaryRequest request) {
+        DiaryEntry entry = new DiaryEntry();
+        entry.setUserId(userId);
+        imageStoreService.replaceReference(null, request.imagePath());
+        apply(entry, request);
+        return diaryEntryRepository.save(entry);
+    }
+
+    @Transactional
+    public DiaryEntry update(String userId, String id, DiaryRequest request) {
+        DiaryEntry entry = get(userId, id);
+        imageStoreService.replaceReference(entry.getImagePath(), request.imagePath());
+        apply(entry, request);
+        // flush 之後 @UpdateTimestamp 才會更新，回傳的 updatedAt（ETag）才是新的
+        return diaryEntryRepository.saveAndFlush(entry);
+    }
+
+    @Transactional
+    public void delete(String userId, String id) {
+        DiaryEntry entry = get(userId, id);
+        imageStoreService.replaceReference(entry.getImagePath(), null);
+        diaryEntryRepository.delete(entry);
+        diaryTombstoneRepository.save(DiaryTombstone.of(entry));
+    }
+
+    private static void apply(DiaryEntry entry, DiaryRequest request) {
+        entry.setDate(request.date());
+        entry.setMood(request.mood());
+        entry.setWeather(request.weather());
+        entry.setContent(request.content());
+        entry.setImagePath(request.imagePath());
+    }
+}
@@ -0,0 +1,126 @@
+package com.diary.service;
+
+import com.diary.dto.DiaryExport;
+import com.diary.exception.NotFoundException;
+import com.diary.repository.DiaryEntryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 匯出使用者的全部日記。依 (date, id) 分批讀取，每批在各自的短唯讀交易中讀完、交易結束後才寫給用戶端，
+ * 下載再慢也不會一直佔著資料庫連線；記憶體用量只和一批的大小有關。
+ * 匯出期間被修改的日記，還沒讀到的會是新內容。
+ */
+@Service
+public class ExportService {
+
+    /** 沒有指定起始日期時從這天開始（MySQL DATE 的下限） */
+    public static final LocalDate EARLIEST = LocalDate.of(1000, 1, 1);
+
+    public static final String ENTRIES_FILE = "entries.ndjson";
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg",
+            "image/png", ".png",
+            "image/gif", ".gif",
+            "image/webp", ".webp",
+            "image/bmp", ".bmp");
+
+    private final DiaryEntryRepository diaryEntryRepository;
+    private final ImageStoreService imageStoreService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnly;
+
+    public ExportService(DiaryEntryRepository diaryEntryRepository,
+                         ImageStoreService imageStoreService,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager) {
+        this.diaryEntryRepository = diaryEntryRepository;
+        this.imageStoreService = imageStoreService;
+        this.objectMapper = objectMapper;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /**
+     * NDJSON：每行一篇，依日期由舊到新。回傳寫出的篇數。
+     */
+    public long writeNdjson(String userId, LocalDate from, OutputStream out) throws IOException {
+        return writeEntries(userId, from, out, null);
+    }
+
+    /**
+     * ZIP：entries.ndjson 加上日記引用的圖片（images/{sha256}.副檔名）。
+     * 圖片的雜湊在寫 entries.ndjson 時順便收集，複製檔案時不在任何交易中。
+     */
+    public void writeZip(String userId, LocalDate from, OutputStream out) throws IOException {
+        Set<String> images = new LinkedHashSet<>();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.putNextEntry(new ZipEntry(ENTRIES_FILE));
+        writeEntries(userId, from, zip, images);
+        zip.closeEntry();
+
+        // 圖片本身已經壓縮過，再壓只是浪費 CPU
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        for (String hash : images) {
+            Path file;
+            try {
+                file = imageStoreService.resolve(hash, null);
+            } catch (NotFoundException e) {
+                continue;
+            }
+            String extension = EXTENSIONS.getOrDefault(imageStoreService.contentType(hash, file), "");
+            zip.putNextEntry(new ZipEntry("images/" + hash + extension));
+            Files.copy(file, zip);
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    // images 不是 null 時把引用到的圖片雜湊加進去
+    private long writeEntries(String userId, LocalDate from, OutputStream out, Set<String> images)
+            throws IOException {
+        Pageable batch = PageRequest.of(0, DiaryEntryRepository.EXPORT_BATCH_SIZE);
+        long count = 0;
+        DiaryExport last = null;
+        while (true) {
+            DiaryExport after = last;
+            List<DiaryExport> rows = readOnly.execute(status -> after == null
+                    ? diaryEntryRepository.findExportPage(userId, from, batch)
+                    : diaryEntryRepository.findExportPageAfter(userId, after.date(), after.id(), batch));
+            for (DiaryExport row : rows) {
+                out.write(objectMapper.writeValueAsBytes(row));
+                out.write('\n');
+                String hash = ImageStoreService.hashOf(row.imagePath());
+                if (images != null && hash != null) {
+                    images.add(hash);
+                }
+            }
+            count += rows.size();
+            // 每批送出一次，用戶端邊收邊存；中斷時從收到的最後一天續傳
+            out.flush();
+            if (rows.size() < batch.getPageSize()) {
+                return count;
+            }
+            last = rows.get(rows.size() - 1);
+        }
+    }
+}
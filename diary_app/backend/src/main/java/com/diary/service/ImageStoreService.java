@@ -0,0 +1,448 @@
+package com.diary.service;
+
+import com.diary.config.ImageProperties;
+import com.diary.dto.UploadRequest;
+import com.diary.dto.UploadStatus;
+import com.diary.exception.BadRequestException;
+import com.diary.exception.ConflictException;
+import com.diary.exception.NotFoundException;
+import com.diary.model.ImageBlob;
+import com.diary.model.ImageUpload;
+import com.diary.repository.ImageBlobRepository;
+import com.diary.repository.ImageUploadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 以內容雜湊定址的圖片庫。
+ * <ul>
+ *   <li>檔案放在 blobs/ab/cd/{sha256}，前兩段雜湊當子目錄，單一目錄不會有太多檔案</li>
+ *   <li>上傳分段進行，每段直接從 request 串流寫進暫存檔，斷線後可從已收到的位置續傳</li>
+ *   <li>同一張圖只存一份，以引用數（引用它的日記篇數）決定何時可以刪除</li>
+ *   <li>收完後在背景產生縮圖 {sha256}_{寬度}.jpg</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class ImageStoreService {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern REFERENCE = Pattern.compile("/images/([0-9a-f]{64})");
+    private static final int BUFFER = 64 * 1024;
+
+    private final ImageProperties properties;
+    private final ImageBlobRepository imageBlobRepository;
+    private final ImageUploadRepository imageUploadRepository;
+    private final TaskExecutor taskExecutor;
+    // 同一個上傳同時只能有一個請求在寫或收尾；add 成功才能動暫存檔，finish 做完才 remove
+    private final Set<String> writing = ConcurrentHashMap.newKeySet();
+
+    public ImageStoreService(ImageProperties properties,
+                             ImageBlobRepository imageBlobRepository,
+                             ImageUploadRepository imageUploadRepository,
+                             @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.properties = properties;
+        this.imageBlobRepository = imageBlobRepository;
+        this.imageUploadRepository = imageUploadRepository;
+        this.taskExecutor = taskExecutor;
+    }
+
+    public UploadStatus start(String userId, UploadRequest request) {
+        if (request.size() > properties.maxSize().toBytes()) {
+            throw new BadRequestException("圖片超過 " + properties.maxSize().toMegabytes() + "MB");
+        }
+        // 已經有同樣內容的圖，不必再傳一次
+        if (request.sha256() != null
+                && imageBlobRepository.adjustRefCount(request.sha256(), 0, LocalDateTime.now()) == 1) {
+            return UploadStatus.done(null, request.size(), request.sha256());
+        }
+        ImageUpload upload = new ImageUpload(UUID.randomUUID().toString(), userId, request.size(),
+                request.sha256(), null, null);
+        try {
+            Files.createDirectories(uploadsDir());
+            Files.createFile(partFile(upload.getId()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        imageUploadRepository.save(upload);
+        return UploadStatus.pending(upload.getId(), 0, upload.getSize());
+    }
+
+    public UploadStatus status(String userId, String id) {
+        ImageUpload upload = findUpload(userId, id);
+        if (upload.getStoredSha256() != null) {
+            return UploadStatus.done(id, upload.getSize(), upload.getStoredSha256());
+        }
+        return UploadStatus.pending(id, received(id), upload.getSize());
+    }
+
+    /**
+     * 把這一段接在已收到的內容後面。offset 必須等於伺服器已收到的位元組數；
+     * 中途斷線時已寫入的部分會保留，用戶端查詢 offset 後續傳即可。
+     * 已經完成的上傳（例如重送最後一段）直接回傳結果。
+     */
+    public UploadStatus append(String userId, String id, long offset, InputStream body) {
+        findUpload(userId, id);
+        if (!writing.add(id)) {
+            throw new ConflictException("這個上傳正在寫入中");
+        }
+        try {
+            // 取得寫入權之後重新讀一次：等待期間可能已經被別的請求收完
+            ImageUpload upload = findUpload(userId, id);
+            if (upload.getStoredSha256() != null) {
+                return UploadStatus.done(id, upload.getSize(), upload.getStoredSha256());
+            }
+            long received;
+            try (FileChannel out = FileChannel.open(partFile(id), StandardOpenOption.WRITE)) {
+                long current = out.size();
+                if (offset != current) {
+                    throw new ConflictException("Upload-Offset 應為 " + current);
+                }
+                received = copy(body, out, current, upload.getSize());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (received < upload.getSize()) {
+                return UploadStatus.pending(id, received, upload.getSize());
+            }
+            return finish(upload);
+        } finally {
+            writing.remove(id);
+        }
+    }
+
+    public void cancel(String userId, String id) {
+        ImageUpload upload = findUpload(userId, id);
+        if (!writing.add(id)) {
+            throw new ConflictException("這個上傳正在寫入中");
+        }
+        try {
+            deleteQuietly(partFile(id));
+            imageUploadRepository.delete(upload);
+        } finally {
+            writing.remove(id);
+        }
+    }
+
+    /**
+     * 要送出的檔案：有 width 時給不小於它的最小縮圖，沒有合適的縮圖（或還沒產生好）就給原圖。
+     */
+    public Path resolve(String hash, Integer width) {
+        if (!HASH.matcher(hash).matches()) {
+            throw new NotFoundException("找不到圖片：" + hash);
+        }
+        Path original = blobFile(hash);
+        if (width != null) {
+            Integer best = properties.variants().stream()
+                    .filter(w -> w >= width)
+                    .min(Integer::compare)
+                    .orElse(null);
+            if (best != null && Files.exists(variantFile(hash, best))) {
+                return variantFile(hash, best);
+            }
+        }
+        if (!Files.exists(original)) {
+            throw new NotFoundException("找不到圖片：" + hash);
+        }
+        return original;
+    }
+
+    public String contentType(String hash, Path file) {
+        if (!file.equals(blobFile(hash))) {
+            return "image/jpeg";
+        }
+        return imageBlobRepository.findById(hash).map(ImageBlob::getContentType).orElse("application/octet-stream");
+    }
+
+    /**
+     * 日記的圖片從 oldPath 換成 newPath 時調整引用數，在呼叫端的交易中進行。
+     * 不是圖片庫位址（/images/{sha256}）的路徑，例如外部網址或舊資料，不影響引用數。
+     */
+    @Transactional
+    public void replaceReference(String oldPath, String newPath) {
+        String oldHash = hashOf(oldPath);
+        String newHash = hashOf(newPath);
+        if (Objects.equals(oldHash, newHash)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (newHash != null && imageBlobRepository.adjustRefCount(newHash, 1, now) == 0) {
+            throw new BadRequestException("找不到圖片：" + newPath);
+        }
+        if (oldHash != null) {
+            imageBlobRepository.adjustRefCount(oldHash, -1, now);
+        }
+    }
+
+    /** 定期清掉沒有日記引用的圖片與放棄的上傳 */
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT5M")
+    public void collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.unusedTtl());
+        for (ImageUpload upload : imageUploadRepository.findByCreatedAtBefore(cutoff)) {
+            deleteQuietly(partFile(upload.getId()));
+            imageUploadRepository.delete(upload);
+        }
+        int removed = 0;
+        for (String hash : imageBlobRepository.findUnusedBefore(cutoff)) {
+            if (imageBlobRepository.deleteIfUnused(hash) == 1) {
+                deleteQuietly(blobFile(hash));
+                for (int w : properties.variants()) {
+                    deleteQuietly(variantFile(hash, w));
+                }
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.info("已刪除 {} 張沒有被引用的圖片", removed);
+        }
+    }
+
+    static String hashOf(String imagePath) {
+        if (imagePath == null) {
+            return null;
+        }
+        Matcher m = REFERENCE.matcher(imagePath);
+        return m.matches() ? m.group(1) : null;
+    }
+
+    // 收完整個檔案，呼叫端持有這個上傳的寫入權。成功時留下 storedSha256，之後的請求直接回報完成；
+    // 內容不對時整個上傳作廢
+    private UploadStatus finish(ImageUpload upload) {
+        Path part = partFile(upload.getId());
+        try {
+            String hash = store(part, upload);
+            upload.setStoredSha256(hash);
+            imageUploadRepository.save(upload);
+            return UploadStatus.done(upload.getId(), upload.getSize(), hash);
+        } catch (RuntimeException e) {
+            imageUploadRepository.delete(upload);
+            throw e;
+        } finally {
+            deleteQuietly(part);
+        }
+    }
+
+    // 檢查內容、移到圖片庫（已經有同樣的圖就丟掉這份）、背景產生縮圖，回傳 sha256
+    private String store(Path part, ImageUpload upload) {
+        try {
+            String hash = sha256(part);
+            if (upload.getSha256() != null && !upload.getSha256().equals(hash)) {
+                throw new BadRequestException("內容與 sha256 不符");
+            }
+            LocalDateTime now = LocalDateTime.now();
+            if (imageBlobRepository.adjustRefCount(hash, 0, now) == 1) {
+                return hash;
+            }
+            ImageBlob blob = probe(part, hash, upload.getSize());
+            Path target = blobFile(hash);
+            Files.createDirectories(target.getParent());
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            blob.setLastUsedAt(now);
+            try {
+                imageBlobRepository.save(blob);
+            } catch (DataIntegrityViolationException e) {
+                // 另一個上傳剛好同時存入同樣的圖
+                return hash;
+            }
+            taskExecutor.execute(() -> createVariants(hash, target));
+            return hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 從 request 讀到的內容直接寫進檔案，記憶體中只有一個固定大小的緩衝區
+    private static long copy(InputStream body, FileChannel out, long position, long size) throws IOException {
+        ReadableByteChannel in = Channels.newChannel(body);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+        long pos = position;
+        try {
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                if (pos + buffer.remaining() > size) {
+                    throw new BadRequestException("上傳的內容超過宣告的大小");
+                }
+                while (buffer.hasRemaining()) {
+                    pos += out.write(buffer, pos);
+                }
+                buffer.clear();
+            }
+        } catch (BadRequestException e) {
+            out.truncate(position);
+            throw e;
+        }
+        return pos;
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER);
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // 只讀檔頭取得格式與尺寸，不解碼整張圖
+    private static ImageBlob probe(Path file, String hash, long size) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new BadRequestException("不是支援的圖片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                String format = reader.getFormatName().toLowerCase();
+                String type = format.equals("jpg") ? "image/jpeg" : "image/" + format;
+                return new ImageBlob(hash, size, type, reader.getWidth(0), reader.getHeight(0), 0, null, null);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void createVariants(String hash, Path original) {
+        for (int width : properties.variants()) {
+            try {
+                BufferedImage img = readScaled(original, width);
+                if (img == null) {
+                    continue;
+                }
+                Path target = variantFile(hash, width);
+                Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+                ImageIO.write(img, "jpg", tmp.toFile());
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                log.warn("無法產生縮圖 {}_{}：{}", hash, width, e.toString());
+            }
+        }
+    }
+
+    /**
+     * 讀成最長邊為 maxEdge 的圖；原圖沒有比較大時回傳 null（直接用原圖）。
+     * 解碼時先以 subsampling 跳過多餘的像素，大張照片不會整張解碼進記憶體。
+     */
+    private static BufferedImage readScaled(Path file, int maxEdge) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                int edge = Math.max(w, h);
+                if (edge <= maxEdge) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, edge / (maxEdge * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage src = reader.read(0, param);
+
+                double scale = (double) maxEdge / Math.max(src.getWidth(), src.getHeight());
+                int tw = Math.max(1, (int) Math.round(src.getWidth() * scale));
+                int th = Math.max(1, (int) Math.round(src.getHeight() * scale));
+                BufferedImage out = new BufferedImage(tw, th, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = out.createGraphics();
+                try {
+                    // JPEG 沒有透明度，透明的部分填白色
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, tw, th);
+                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    g.drawImage(src, 0, 0, tw, th, null);
+                } finally {
+                    g.dispose();
+                }
+                return out;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private ImageUpload findUpload(String userId, String id) {
+        return imageUploadRepository.findByIdAndUserId(id, userId)
+                .orElseThrow(() -> new NotFoundException("找不到上傳：" + id));
+    }
+
+    private long received(String id) {
+        try {
+            return Files.size(partFile(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path uploadsDir() {
+        return properties.dir().resolve("uploads");
+    }
+
+    private Path partFile(String id) {
+        return uploadsDir().resolve(id + ".part");
+    }
+
+    private Path blobFile(String hash) {
+        return properties.dir().resolve("blobs").resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Path variantFile(String hash, int width) {
+        return blobFile(hash).resolveSibling(hash + "_" + width + ".jpg");
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("無法刪除 {}：{}", file, e.toString());
+        }
+    }
+}
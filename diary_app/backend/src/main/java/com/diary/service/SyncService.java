@@ -0,0 +1,149 @@
+package com.diary.service;
+
+import com.diary.dto.DiaryChange;
+import com.diary.dto.SyncCursor;
+import com.diary.dto.SyncResult;
+import com.diary.exception.BadRequestException;
+import com.diary.model.DiaryEntry;
+import com.diary.model.DiaryTombstone;
+import com.diary.repository.DiaryEntryRepository;
+import com.diary.repository.DiaryTombstoneRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 離線用戶端的增量同步：只傳游標之後有變動（新增、修改、刪除）的日記。
+ */
+@Service
+@RequiredArgsConstructor
+public class SyncService {
+
+    /**
+     * updatedAt 在交易送出前就決定了，比較早開始、比較晚 commit 的交易
+     * 可能出現在游標之前。每次同步結束時游標退回這段時間，重讀的部分用戶端以 id 覆蓋即可。
+     */
+    static final Duration SETTLE = Duration.ofSeconds(5);
+
+    private static final Comparator<DiaryChange> ORDER =
+            Comparator.comparing(DiaryChange::updatedAt).thenComparing(DiaryChange::id);
+
+    private final DiaryEntryRepository diaryEntryRepository;
+    private final DiaryTombstoneRepository diaryTombstoneRepository;
+    private final ImageStoreService imageStoreService;
+    private final EntityManager entityManager;
+
+    /**
+     * 游標之後的 limit 筆變動（含刪除），依 (時間, id) 由舊到新。
+     */
+    @Transactional(readOnly = true)
+    public List<DiaryChange> changesAfter(String userId, SyncCursor after, int limit) {
+        PageRequest page = PageRequest.ofSize(limit);
+        List<DiaryChange> changes = new ArrayList<>(limit * 2);
+        for (DiaryEntry e : diaryEntryRepository.findChangedAfter(userId, after.at(), after.id(), page)) {
+            changes.add(DiaryChange.of(e));
+        }
+        for (DiaryTombstone t : diaryTombstoneRepository.findDeletedAfter(userId, after.at(), after.id(), page)) {
+            changes.add(DiaryChange.of(t));
+        }
+        // 兩邊各自已排序且各取 limit 筆，合併後的前 limit 筆就是整體的前 limit 筆
+        changes.sort(ORDER);
+        return changes.size() > limit ? changes.subList(0, limit) : changes;
+    }
+
+    /**
+     * 同步結束時交給用戶端的游標，最多到 {@link #SETTLE} 之前。
+     */
+    public SyncCursor checkpoint(SyncCursor last) {
+        LocalDateTime settled = LocalDateTime.now().minus(SETTLE);
+        return last.at().isAfter(settled) ? new SyncCursor(settled, "") : last;
+    }
+
+    /**
+     * 在同一個交易中套用用戶端的修改；同一篇兩邊都改過時以 updatedAt 較新的為準。
+     */
+    @Transactional
+    public SyncResult upload(String userId, List<DiaryChange> changes) {
+        List<String> ids = changes.stream().map(DiaryChange::id).toList();
+        // 一次查出所有相關的日記與刪除紀錄，不逐筆查詢
+        Map<String, DiaryEntry> entries = diaryEntryRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(DiaryEntry::getId, Function.identity()));
+        Map<String, DiaryTombstone> tombstones = diaryTombstoneRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(DiaryTombstone::getId, Function.identity()));
+
+        List<String> applied = new ArrayList<>();
+        List<DiaryChange> rejected = new ArrayList<>();
+        for (DiaryChange change : changes) {
+            DiaryEntry current = entries.get(change.id());
+            DiaryTombstone tombstone = tombstones.get(change.id());
+            if ((current != null && !current.getUserId().equals(userId))
+                    || (tombstone != null && !tombstone.getUserId().equals(userId))) {
+                throw new BadRequestException("無效的日記 id：" + change.id());
+            }
+            validate(change);
+
+            LocalDateTime serverTime = current != null ? current.getUpdatedAt()
+                    : tombstone != null ? tombstone.getDeletedAt() : null;
+            if (serverTime != null && !change.updatedAt().isAfter(serverTime)) {
+                rejected.add(current != null ? DiaryChange.of(current) : DiaryChange.of(tombstone));
+                continue;
+            }
+
+            if (change.deleted()) {
+                if (current != null) {
+                    imageStoreService.replaceReference(current.getImagePath(), null);
+                    diaryEntryRepository.delete(current);
+                    DiaryTombstone t = DiaryTombstone.of(current);
+                    entityManager.persist(t);
+                    entries.remove(change.id());
+                    tombstones.put(change.id(), t);
+                }
+            } else {
+                if (tombstone != null) {
+                    diaryTombstoneRepository.delete(tombstone);
+                    tombstones.remove(change.id());
+                }
+                imageStoreService.replaceReference(current == null ? null : current.getImagePath(), change.imagePath());
+                DiaryEntry entry = current;
+                if (entry == null) {
+                    entry = new DiaryEntry();
+                    entry.setId(change.id());
+                    entry.setUserId(userId);
+                }
+                entry.setDate(change.date());
+                entry.setMood(change.mood());
+                entry.setWeather(change.weather());
+                entry.setContent(change.content());
+                entry.setImagePath(change.imagePath());
+                if (current == null) {
+                    // id 由用戶端指定，直接 persist，不必像 save() 那樣先 SELECT 一次
+                    entityManager.persist(entry);
+                    entries.put(change.id(), entry);
+                }
+            }
+            applied.add(change.id());
+        }
+        return new SyncResult(applied, rejected);
+    }
+
+    private static void validate(DiaryChange change) {
+        if (change.updatedAt() == null) {
+            throw new BadRequestException("缺少 updatedAt：" + change.id());
+        }
+        if (!change.deleted() && (change.date() == null || change.mood() == null
+                || change.weather() == null || change.content() == null)) {
+            throw new BadRequestException("日記內容不完整：" + change.id());
+        }
+    }
+}